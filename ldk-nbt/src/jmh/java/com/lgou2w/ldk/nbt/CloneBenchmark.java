@@ -0,0 +1,65 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CloneBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private CompoundTag tag;
+  private ImmutableCompoundTag template;
+  private String firstKey;
+
+  @Setup
+  public void setup() {
+    tag = NBTCorpus.create(corpus);
+    template = tag.toImmutable();
+    firstKey = tag.keySet().iterator().next();
+  }
+
+  @Benchmark
+  public CompoundTag cloneCompound() {
+    return tag.clone();
+  }
+
+  @Benchmark
+  public CompoundTag cloneImmutable() {
+    return template.clone();
+  }
+
+  @Benchmark
+  public CompoundTag cloneImmutableAndPut() {
+    CompoundTag copy = template.clone();
+    copy.put(firstKey, new IntTag(1));
+    return copy;
+  }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class CompoundMapBenchmark {
+
+  @Param({ "2", "6", "16" })
+  public int size;
+
+  private String[] keys;
+  private BaseTag<?>[] values;
+  private CompoundMap compound;
+  private LinkedHashMap<String, BaseTag<?>> linked;
+
+  @Setup
+  public void setup() {
+    keys = new String[size];
+    values = new BaseTag<?>[size];
+    for (int i = 0; i < size; i++) {
+      keys[i] = "key" + i;
+      values[i] = new IntTag(i);
+    }
+    compound = createCompound();
+    linked = createLinked();
+  }
+
+  @Benchmark
+  public CompoundMap createCompound() {
+    CompoundMap map = new CompoundMap();
+    for (int i = 0; i < keys.length; i++) map.put(keys[i], values[i]);
+    return map;
+  }
+
+  @Benchmark
+  public LinkedHashMap<String, BaseTag<?>> createLinked() {
+    LinkedHashMap<String, BaseTag<?>> map = new LinkedHashMap<>();
+    for (int i = 0; i < keys.length; i++) map.put(keys[i], values[i]);
+    return map;
+  }
+
+  @Benchmark
+  public void getCompound(Blackhole blackhole) {
+    for (String key : keys) blackhole.consume(compound.get(key));
+  }
+
+  @Benchmark
+  public void getLinked(Blackhole blackhole) {
+    for (String key : keys) blackhole.consume(linked.get(key));
+  }
+
+  @Benchmark
+  public void iterateCompound(Blackhole blackhole) {
+    for (Map.Entry<String, BaseTag<?>> entry : compound.entrySet()) blackhole.consume(entry.getValue());
+  }
+
+  @Benchmark
+  public void iterateLinked(Blackhole blackhole) {
+    for (Map.Entry<String, BaseTag<?>> entry : linked.entrySet()) blackhole.consume(entry.getValue());
+  }
+}
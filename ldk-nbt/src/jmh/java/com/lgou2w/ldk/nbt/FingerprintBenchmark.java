@@ -0,0 +1,83 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class FingerprintBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private CompoundTag mutable;
+  private CompoundTag mutableCopy;
+  private ImmutableCompoundTag immutable;
+  private ImmutableCompoundTag immutableCopy;
+  private Map<CompoundTag, Boolean> mutableKeys;
+  private Map<NBTFingerprint, Boolean> fingerprintKeys;
+
+  @Setup
+  public void setup() {
+    mutable = NBTCorpus.create(corpus);
+    mutableCopy = mutable.clone();
+    immutable = mutable.toImmutable();
+    immutableCopy = ImmutableCompoundTag.copyOf(mutable.clone());
+    mutableKeys = new HashMap<>();
+    mutableKeys.put(mutable, true);
+    fingerprintKeys = new HashMap<>();
+    fingerprintKeys.put(immutable.fingerprint(), true);
+  }
+
+  @Benchmark
+  public boolean equalsMutable() {
+    return mutable.equals(mutableCopy);
+  }
+
+  @Benchmark
+  public boolean equalsFingerprint() {
+    return immutable.fingerprint().equals(immutableCopy.fingerprint());
+  }
+
+  @Benchmark
+  public Boolean lookupMutable() {
+    return mutableKeys.get(mutableCopy);
+  }
+
+  @Benchmark
+  public Boolean lookupFingerprint() {
+    return fingerprintKeys.get(immutableCopy.fingerprint());
+  }
+
+  @Benchmark
+  public NBTFingerprint fingerprintMutable() {
+    return mutable.fingerprint();
+  }
+}
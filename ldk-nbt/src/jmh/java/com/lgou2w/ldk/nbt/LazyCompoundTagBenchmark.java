@@ -0,0 +1,71 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class LazyCompoundTagBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private byte[] encoded;
+  private ByteBuffer output;
+  private String firstKey;
+
+  @Setup
+  public void setup() throws IOException {
+    CompoundTag tag = NBTCorpus.create(corpus);
+    firstKey = tag.keySet().iterator().next();
+    ByteBuffer buffer = NBTStreams.writeBuffer(NBTMetadata.of(tag), false);
+    encoded = new byte[buffer.remaining()];
+    buffer.get(encoded);
+    output = ByteBuffer.allocate(encoded.length);
+  }
+
+  @Benchmark
+  public ByteBuffer decodeCheckWrite() throws IOException {
+    NBTMetadata metadata = NBTStreams.read(ByteBuffer.wrap(encoded));
+    ((CompoundTag) metadata.getValue()).hasKey(firstKey);
+    output.clear();
+    NBTStreams.write(output, metadata);
+    return output;
+  }
+
+  @Benchmark
+  public ByteBuffer viewCheckWrite() throws IOException {
+    NBTMetadata metadata = NBTStreams.readView(encoded);
+    ((CompoundTag) metadata.getValue()).hasKey(firstKey);
+    output.clear();
+    NBTStreams.write(output, metadata);
+    return output;
+  }
+}
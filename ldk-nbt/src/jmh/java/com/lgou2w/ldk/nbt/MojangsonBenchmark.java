@@ -0,0 +1,78 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.CharArrayWriter;
+import java.io.IOException;
+import java.io.StringReader;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class MojangsonBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private CompoundTag tag;
+  private String mojangson;
+  private CharArrayWriter writer;
+
+  @Setup
+  public void setup() {
+    tag = NBTCorpus.create(corpus);
+    mojangson = tag.toMojangson();
+    writer = new CharArrayWriter(mojangson.length());
+  }
+
+  @Benchmark
+  public BaseTag<?> parse() {
+    return MojangsonParser.parse(mojangson);
+  }
+
+  @Benchmark
+  public BaseTag<?> parseReader() throws IOException {
+    return MojangsonParser.parse(new StringReader(mojangson));
+  }
+
+  @Benchmark
+  public String toMojangson() {
+    return tag.toMojangson();
+  }
+
+  @Benchmark
+  public String toMojangsonColor() {
+    return tag.toMojangson(true);
+  }
+
+  @Benchmark
+  public CharArrayWriter toMojangsonWriter() throws IOException {
+    writer.reset();
+    tag.toMojangson(writer);
+    return writer;
+  }
+}
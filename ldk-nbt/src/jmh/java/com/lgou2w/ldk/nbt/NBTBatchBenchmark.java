@@ -0,0 +1,88 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NBTBatchBenchmark {
+
+  private final static int FILE_COUNT = 256;
+
+  private Path directory;
+  private Map<Path, NBTMetadata> files;
+  private NBTAsyncWriter writer;
+
+  @Setup
+  public void setup() throws IOException {
+    directory = Files.createTempDirectory("ldk-nbt-batch");
+    NBTMetadata metadata = NBTMetadata.of(NBTCorpus.create(NBTCorpus.PLAYER_INVENTORY));
+    files = new LinkedHashMap<>();
+    for (int i = 0; i < FILE_COUNT; i++) files.put(directory.resolve(i + ".dat"), metadata);
+    writer = new NBTAsyncWriter(NBTCompression.GZIP, 0L, TimeUnit.MILLISECONDS, false);
+  }
+
+  @TearDown
+  public void tearDown() throws IOException {
+    writer.close();
+    try (Stream<Path> paths = Files.walk(directory)) {
+      paths.sorted(Comparator.reverseOrder()).forEach(path -> path.toFile().delete());
+    }
+  }
+
+  @Benchmark
+  public int writeSequential() throws IOException {
+    for (Map.Entry<Path, NBTMetadata> entry : files.entrySet())
+      NBTStreams.writeFileAtomic(entry.getValue(), entry.getKey(), NBTCompression.GZIP);
+    return files.size();
+  }
+
+  @Benchmark
+  public NBTBatchResult<Long> writeAll() {
+    return NBTStreams.writeAll(files, NBTCompression.GZIP);
+  }
+
+  @Benchmark
+  public Void writeAsync() {
+    for (Map.Entry<Path, NBTMetadata> entry : files.entrySet())
+      writer.write(entry.getKey(), entry.getValue());
+    return writer.flush().join();
+  }
+
+  @Benchmark
+  public NBTBatchResult<NBTMetadata> readAll() {
+    return NBTStreams.readAll(files.keySet(), NBTCompression.GZIP);
+  }
+}
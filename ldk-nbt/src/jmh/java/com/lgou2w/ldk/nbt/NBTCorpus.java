@@ -0,0 +1,165 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.util.Random;
+
+final class NBTCorpus {
+
+  private NBTCorpus() { }
+
+  final static String PLAYER_INVENTORY = "player_inventory";
+  final static String SHULKER_BOOKS = "shulker_books";
+  final static String CHUNK_SECTIONS = "chunk_sections";
+
+  @NotNull
+  static CompoundTag create(@NotNull String name) {
+    switch (name) {
+      case PLAYER_INVENTORY: return playerInventory();
+      case SHULKER_BOOKS: return shulkerBooks();
+      case CHUNK_SECTIONS: return chunkSections();
+      default: throw new IllegalArgumentException("Unknown corpus: " + name);
+    }
+  }
+
+  @NotNull
+  static CompoundTag playerInventory() {
+    Random random = new Random(0x1D4L);
+    ListTag inventory = new ListTag();
+    for (int slot = 0; slot < 36; slot++) {
+      int index = slot;
+      CompoundTag item = item(slot, "minecraft:diamond_sword", 1);
+      CompoundTag tag = new CompoundTag();
+      tag.setInt("Damage", random.nextInt(1561));
+      tag.setInt("RepairCost", 3);
+      tag.set("display", CompoundTag.of(display -> {
+        display.setString("Name", "{\"text\":\"Blade #" + index + "\",\"color\":\"gold\",\"italic\":false}");
+        display.set("Lore", ListTag.of(lore -> {
+          for (int i = 0; i < 4; i++)
+            lore.addString("{\"text\":\"Forged in the depths, line " + i + "\",\"color\":\"gray\"}");
+        }));
+      }));
+      tag.set("Enchantments", ListTag.of(enchantments -> {
+        enchantments.add(enchantment("minecraft:sharpness", 5));
+        enchantments.add(enchantment("minecraft:unbreaking", 3));
+        enchantments.add(enchantment("minecraft:looting", 3));
+        enchantments.add(enchantment("minecraft:mending", 1));
+      }));
+      tag.set("AttributeModifiers", ListTag.of(modifiers -> modifiers.add(CompoundTag.of(modifier -> {
+        modifier.setString("AttributeName", "generic.attack_damage");
+        modifier.setString("Name", "generic.attack_damage");
+        modifier.setDouble("Amount", 7.0 + random.nextDouble());
+        modifier.setInt("Operation", 0);
+        modifier.setIntArray("UUID", new int[] { random.nextInt(), random.nextInt(), random.nextInt(), random.nextInt() });
+        modifier.setString("Slot", "mainhand");
+      }))));
+      item.set("tag", tag);
+      inventory.add(item);
+    }
+    CompoundTag player = new CompoundTag();
+    player.setInt("DataVersion", 2586);
+    player.setString("Dimension", "minecraft:overworld");
+    player.set("Pos", ListTag.of(pos -> pos.addDouble(128.5, 64.0, -256.5)));
+    player.set("Motion", ListTag.of(motion -> motion.addDouble(0.0, -0.0784000015258789, 0.0)));
+    player.set("Rotation", ListTag.of(rotation -> rotation.addFloat(90.0f, 12.5f)));
+    player.setIntArray("UUID", new int[] { 1, 2, 3, 4 });
+    player.setFloat("Health", 20.0f);
+    player.setInt("XpLevel", 30);
+    player.set("Inventory", inventory);
+    return player;
+  }
+
+  @NotNull
+  static CompoundTag shulkerBooks() {
+    ListTag items = new ListTag();
+    for (int slot = 0; slot < 27; slot++) {
+      CompoundTag book = item(slot, "minecraft:written_book", 1);
+      CompoundTag tag = new CompoundTag();
+      tag.setString("title", "Volume " + slot);
+      tag.setString("author", "lgou2w");
+      tag.setInt("generation", 0);
+      tag.setBoolean("resolved", true);
+      ListTag pages = new ListTag();
+      for (int page = 0; page < 50; page++)
+        pages.addString("{\"text\":\"Page " + page + " of volume " + slot + ". Lorem ipsum dolor sit amet, consectetur adipiscing elit, sed do eiusmod tempor incididunt ut labore et dolore magna aliqua.\"}");
+      tag.set("pages", pages);
+      book.set("tag", tag);
+      items.add(book);
+    }
+    CompoundTag shulker = item(0, "minecraft:shulker_box", 1);
+    shulker.set("tag", CompoundTag.of(tag -> tag.set("BlockEntityTag", CompoundTag.of(entity -> {
+      entity.setString("id", "minecraft:shulker_box");
+      entity.set("Items", items);
+    }))));
+    return shulker;
+  }
+
+  @NotNull
+  static CompoundTag chunkSections() {
+    Random random = new Random(0xC4L);
+    ListTag sections = new ListTag();
+    for (int y = 0; y < 16; y++) {
+      CompoundTag section = new CompoundTag();
+      section.setByte("Y", y);
+      long[] states = new long[256];
+      for (int i = 0; i < states.length; i++) states[i] = random.nextLong();
+      section.setLongArray("BlockStates", states);
+      byte[] light = new byte[2048];
+      random.nextBytes(light);
+      section.setByteArray("BlockLight", light);
+      random.nextBytes(light);
+      section.setByteArray("SkyLight", light);
+      section.set("Palette", ListTag.of(palette -> {
+        for (int i = 0; i < 16; i++)
+          palette.add(CompoundTag.of(block -> block.setString("Name", "minecraft:block_" + random.nextInt(64))));
+      }));
+      sections.add(section);
+    }
+    int[] biomes = new int[1024];
+    for (int i = 0; i < biomes.length; i++) biomes[i] = random.nextInt(80);
+    CompoundTag level = new CompoundTag();
+    level.setInt("xPos", 12);
+    level.setInt("zPos", -7);
+    level.setLong("LastUpdate", 1_234_567L);
+    level.setString("Status", "full");
+    level.setIntArray("Biomes", biomes);
+    level.set("Sections", sections);
+    CompoundTag chunk = new CompoundTag();
+    chunk.setInt("DataVersion", 2586);
+    chunk.set("Level", level);
+    return chunk;
+  }
+
+  @NotNull
+  private static CompoundTag item(int slot, @NotNull String id, int count) {
+    CompoundTag item = new CompoundTag();
+    item.setByte("Slot", slot);
+    item.setString("id", id);
+    item.setByte("Count", count);
+    return item;
+  }
+
+  @NotNull
+  private static CompoundTag enchantment(@NotNull String id, int level) {
+    CompoundTag enchantment = new CompoundTag();
+    enchantment.setString("id", id);
+    enchantment.setShort("lvl", level);
+    return enchantment;
+  }
+}
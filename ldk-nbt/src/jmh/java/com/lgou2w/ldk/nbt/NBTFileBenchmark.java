@@ -0,0 +1,87 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NBTFileBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  @Param({ "true", "false" })
+  public boolean gzip;
+
+  private NBTMetadata metadata;
+  private File readFile;
+  private File writeFile;
+  private File mappedFile;
+
+  @Setup
+  public void setup() throws IOException {
+    metadata = NBTMetadata.of(NBTCorpus.create(corpus));
+    readFile = File.createTempFile("ldk-nbt-read", ".dat");
+    writeFile = File.createTempFile("ldk-nbt-write", ".dat");
+    mappedFile = File.createTempFile("ldk-nbt-mapped", ".dat");
+    NBTStreams.writeFile(metadata, readFile, gzip);
+    NBTStreams.writeFile(metadata, mappedFile, false);
+  }
+
+  @TearDown
+  public void tearDown() {
+    if (readFile != null) readFile.delete();
+    if (writeFile != null) writeFile.delete();
+    if (mappedFile != null) mappedFile.delete();
+  }
+
+  @Benchmark
+  public NBTMetadata readFile() throws IOException {
+    return NBTStreams.readFile(readFile, gzip);
+  }
+
+  @Benchmark
+  public NBTMetadata mapFile() throws IOException {
+    return NBTStreams.mapFile(mappedFile.toPath());
+  }
+
+  @Benchmark
+  public long writeFile() throws IOException {
+    NBTStreams.writeFile(metadata, writeFile, gzip);
+    return writeFile.length();
+  }
+
+  @Benchmark
+  public long writeFileFast() throws IOException {
+    NBTStreams.writeFile(metadata, writeFile, NBTCompression.FAST);
+    return writeFile.length();
+  }
+}
@@ -0,0 +1,64 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+public class NBTParallelBenchmark {
+
+  private final static int ITEM_COUNT = 65536;
+
+  private ByteBuffer buffer;
+
+  @Setup
+  public void setup() throws IOException {
+    ListTag items = new ListTag();
+    for (int i = 0; i < ITEM_COUNT; i++) {
+      items.add(new CompoundTag()
+        .setString("id", "minecraft:stone")
+        .setByte("Count", (byte) 1)
+        .setInt("Slot", i)
+        .set("tag", new CompoundTag()
+          .setString("Name", "Item #" + i)
+          .setIntArray("Data", new int[] { i, i + 1, i + 2 })));
+    }
+    CompoundTag root = new CompoundTag().set("Items", items);
+    buffer = NBTStreams.writeBuffer(NBTMetadata.of(root), false);
+  }
+
+  @Benchmark
+  public NBTMetadata read() throws IOException {
+    return NBTStreams.read(buffer.duplicate());
+  }
+
+  @Benchmark
+  public NBTMetadata readParallel() throws IOException {
+    return NBTStreams.readParallel(buffer.duplicate());
+  }
+}
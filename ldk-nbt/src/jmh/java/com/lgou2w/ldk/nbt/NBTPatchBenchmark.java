@@ -0,0 +1,61 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NBTPatchBenchmark {
+
+  private CompoundTag before;
+  private CompoundTag after;
+  private NBTPatch patch;
+
+  @Setup
+  public void setup() {
+    before = NBTCorpus.create(NBTCorpus.PLAYER_INVENTORY);
+    after = before.clone();
+    ((CompoundTag) after.getList("Inventory").get(17)).getCompound("tag").setInt("Damage", 42);
+    patch = NBTPatch.diff(before, after);
+  }
+
+  @Benchmark
+  public String writeFull() throws IOException {
+    return NBTStreams.writeBase64(NBTMetadata.of(after));
+  }
+
+  @Benchmark
+  public String diffAndWrite() throws IOException {
+    return NBTStreams.writeBase64(NBTMetadata.of(NBTPatch.diff(before, after).toCompound()));
+  }
+
+  @Benchmark
+  public CompoundTag apply() {
+    return patch.apply(before.clone());
+  }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NBTPathBenchmark {
+
+  private final static String PATH = "Inventory[35].tag.Enchantments[{id:\"minecraft:looting\"}].lvl";
+
+  private CompoundTag tag;
+  private byte[] encoded;
+
+  @Setup
+  public void setup() throws IOException {
+    tag = NBTCorpus.create(NBTCorpus.PLAYER_INVENTORY);
+    ByteBuffer buffer = NBTStreams.writeBuffer(NBTMetadata.of(tag), false);
+    encoded = new byte[buffer.remaining()];
+    buffer.get(encoded);
+  }
+
+  @Benchmark
+  public BaseTag<?> getters() {
+    ListTag enchantments = ((CompoundTag) tag.getList("Inventory").get(35))
+      .getCompound("tag")
+      .getList("Enchantments");
+    for (BaseTag<?> enchantment : enchantments) {
+      CompoundTag compound = (CompoundTag) enchantment;
+      if ("minecraft:looting".equals(compound.getString("id"))) return compound.get("lvl");
+    }
+    return null;
+  }
+
+  @Benchmark
+  public BaseTag<?> compiled() {
+    return NBTPath.compile(PATH).get(tag);
+  }
+
+  @Benchmark
+  public BaseTag<?> decodeAndGet() throws IOException {
+    return NBTPath.compile(PATH).get(NBTStreams.read(ByteBuffer.wrap(encoded)).getValue());
+  }
+
+  @Benchmark
+  public BaseTag<?> view() throws IOException {
+    return NBTPath.compile(PATH).get(NBTStreams.readView(encoded).getValue());
+  }
+
+  @Benchmark
+  public BaseTag<?> streaming() throws IOException {
+    return NBTPath.compile(PATH).read(new NBTReader(ByteBuffer.wrap(encoded)));
+  }
+}
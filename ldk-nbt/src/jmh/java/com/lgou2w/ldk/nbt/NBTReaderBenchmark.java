@@ -0,0 +1,69 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NBTReaderBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private byte[] encoded;
+  private String lastKey;
+
+  @Setup
+  public void setup() throws IOException {
+    CompoundTag tag = NBTCorpus.create(corpus);
+    for (String key : tag.keySet()) lastKey = key;
+    ByteBuffer buffer = NBTStreams.writeBuffer(NBTMetadata.of(tag), false);
+    encoded = new byte[buffer.remaining()];
+    buffer.get(encoded);
+  }
+
+  @Benchmark
+  public BaseTag<?> decodeAndGet() throws IOException {
+    CompoundTag tag = (CompoundTag) NBTStreams.read(new ByteArrayInputStream(encoded)).getValue();
+    return tag.get(lastKey);
+  }
+
+  @Benchmark
+  public BaseTag<?> scanAndGet() throws IOException {
+    NBTReader reader = new NBTReader(ByteBuffer.wrap(encoded));
+    reader.beginCompound();
+    while (reader.hasNext()) {
+      if (reader.nextName().equals(lastKey)) return reader.readTag();
+      reader.skipValue();
+    }
+    return null;
+  }
+}
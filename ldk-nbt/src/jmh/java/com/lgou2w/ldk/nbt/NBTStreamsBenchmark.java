@@ -0,0 +1,153 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+public class NBTStreamsBenchmark {
+
+  @Param({ NBTCorpus.PLAYER_INVENTORY, NBTCorpus.SHULKER_BOOKS, NBTCorpus.CHUNK_SECTIONS })
+  public String corpus;
+
+  private NBTMetadata metadata;
+  private byte[] encoded;
+  private String encodedBase64;
+  private String encodedBase64Gzip;
+  private ByteArrayOutputStream output;
+  private ByteBuffer heapBuffer;
+  private ByteBuffer directBuffer;
+  private NBTInternPool pool;
+  private NBTDedupTable table;
+
+  @Setup
+  public void setup() throws IOException {
+    metadata = NBTMetadata.of(NBTCorpus.create(corpus));
+    output = new ByteArrayOutputStream();
+    NBTStreams.write(output, metadata);
+    encoded = output.toByteArray();
+    encodedBase64 = NBTStreams.writeBase64(metadata);
+    encodedBase64Gzip = NBTStreams.writeBase64(metadata, NBTCompression.GZIP);
+    heapBuffer = ByteBuffer.allocate(encoded.length);
+    directBuffer = ByteBuffer.allocateDirect(encoded.length);
+    pool = new NBTInternPool();
+    table = new NBTDedupTable();
+  }
+
+  @Benchmark
+  public NBTMetadata read() throws IOException {
+    return NBTStreams.read(new ByteArrayInputStream(encoded));
+  }
+
+  @Benchmark
+  public NBTMetadata readPooled() throws IOException {
+    return NBTStreams.read(new ByteArrayInputStream(encoded), pool);
+  }
+
+  @Benchmark
+  public NBTMetadata readHeapBufferPooled() throws IOException {
+    return NBTStreams.read(ByteBuffer.wrap(encoded), pool);
+  }
+
+  @Benchmark
+  public NBTMetadata readLimited() throws IOException {
+    return NBTStreams.read(new ByteArrayInputStream(encoded), NBTLimits.UNLIMITED);
+  }
+
+  @Benchmark
+  public NBTMetadata readHeapBufferLimited() throws IOException {
+    return NBTStreams.read(ByteBuffer.wrap(encoded), NBTLimits.UNLIMITED);
+  }
+
+  @Benchmark
+  public NBTMetadata readHeapBufferDedup() throws IOException {
+    return NBTStreams.read(ByteBuffer.wrap(encoded), NBTLimits.UNLIMITED, table);
+  }
+
+  @Benchmark
+  public int write() throws IOException {
+    output.reset();
+    NBTStreams.write(output, metadata);
+    return output.size();
+  }
+
+  @Benchmark
+  public NBTMetadata readHeapBuffer() throws IOException {
+    return NBTStreams.read(ByteBuffer.wrap(encoded));
+  }
+
+  @Benchmark
+  public NBTMetadata readDirectBuffer() throws IOException {
+    directBuffer.clear();
+    directBuffer.put(encoded).flip();
+    return NBTStreams.read(directBuffer);
+  }
+
+  @Benchmark
+  public int writeHeapBuffer() throws IOException {
+    heapBuffer.clear();
+    NBTStreams.write(heapBuffer, metadata);
+    return heapBuffer.position();
+  }
+
+  @Benchmark
+  public int writeDirectBuffer() throws IOException {
+    directBuffer.clear();
+    NBTStreams.write(directBuffer, metadata);
+    return directBuffer.position();
+  }
+
+  @Benchmark
+  public NBTMetadata readBase64() throws IOException {
+    return NBTStreams.readBase64(encodedBase64);
+  }
+
+  @Benchmark
+  public String writeBase64() throws IOException {
+    return NBTStreams.writeBase64(metadata);
+  }
+
+  @Benchmark
+  public NBTMetadata readBase64Gzip() throws IOException {
+    return NBTStreams.readBase64(encodedBase64Gzip, NBTCompression.GZIP);
+  }
+
+  @Benchmark
+  public String writeBase64Gzip() throws IOException {
+    return NBTStreams.writeBase64(metadata, NBTCompression.GZIP);
+  }
+
+  @Benchmark
+  public int measure() {
+    return NBTStreams.measure(metadata);
+  }
+}
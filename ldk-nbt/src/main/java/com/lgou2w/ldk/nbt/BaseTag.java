@@ -19,6 +19,8 @@ package com.lgou2w.ldk.nbt;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.Objects;
 
 public abstract class BaseTag<T> implements NBT<T> {
@@ -53,6 +55,17 @@ public abstract class BaseTag<T> implements NBT<T> {
     return value.hashCode();
   }
 
+  /**
+   * Returns the content fingerprint of this tag, equal tags have equal fingerprints. It is cached by
+   * array tags and immutable compounds, other tags may change without notice and compute it on each call.
+   *
+   * @see ImmutableCompoundTag
+   */
+  @NotNull
+  public NBTFingerprint fingerprint() {
+    return NBTFingerprint.compute(this);
+  }
+
   @Override
   public abstract String toString();
 
@@ -66,11 +79,41 @@ public abstract class BaseTag<T> implements NBT<T> {
   @NotNull
   public String toMojangson(boolean includeColor) {
     StringBuilder builder = new StringBuilder();
-    toMojangsonBuilder(builder, includeColor);
+    try {
+      toMojangsonBuilder(builder, includeColor);
+    } catch (IOException e) {
+      throw new UncheckedIOException(e); // StringBuilder does not throw
+    }
     return builder.toString();
   }
 
-  protected abstract void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor);
+  @Override
+  public void toMojangson(@NotNull Appendable output) throws IOException {
+    toMojangson(output, false);
+  }
+
+  @Override
+  public void toMojangson(@NotNull Appendable output, boolean includeColor) throws IOException {
+    Objects.requireNonNull(output, "output");
+    toMojangsonBuilder(output, includeColor);
+  }
+
+  protected abstract void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException;
+
+  static void appendNumber(@NotNull Appendable builder, long value) throws IOException {
+    if (builder instanceof StringBuilder) ((StringBuilder) builder).append(value);
+    else builder.append(Long.toString(value));
+  }
+
+  static void appendNumber(@NotNull Appendable builder, float value) throws IOException {
+    if (builder instanceof StringBuilder) ((StringBuilder) builder).append(value);
+    else builder.append(Float.toString(value));
+  }
+
+  static void appendNumber(@NotNull Appendable builder, double value) throws IOException {
+    if (builder instanceof StringBuilder) ((StringBuilder) builder).append(value);
+    else builder.append(Double.toString(value));
+  }
 
   @Override
   @NotNull
@@ -18,6 +18,7 @@ package com.lgou2w.ldk.nbt;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -25,6 +26,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 public class ByteArrayTag extends BaseTag<byte[]> {
+  @Nullable private NBTFingerprint fingerprint; // the array is only replaced by setValue and read
 
   @Contract("null -> fail")
   public ByteArrayTag(byte[] value) {
@@ -54,6 +56,7 @@ public class ByteArrayTag extends BaseTag<byte[]> {
     byte[] newValue = new byte[value.length];
     System.arraycopy(value, 0, newValue, 0, newValue.length);
     super.setValue(newValue);
+    fingerprint = null;
   }
 
   @Override
@@ -61,6 +64,7 @@ public class ByteArrayTag extends BaseTag<byte[]> {
     byte[] newValue = new byte[input.readInt()];
     input.readFully(newValue);
     value = newValue;
+    fingerprint = null;
   }
 
   @Override
@@ -69,6 +73,31 @@ public class ByteArrayTag extends BaseTag<byte[]> {
     output.write(value);
   }
 
+  @Override
+  public int sizeInBytes() {
+    return 4 + value.length;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return Arrays.equals(value, ((ByteArrayTag) o).value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(value);
+  }
+
+  @NotNull
+  @Override
+  public NBTFingerprint fingerprint() {
+    NBTFingerprint fingerprint = this.fingerprint;
+    if (fingerprint == null) this.fingerprint = fingerprint = super.fingerprint();
+    return fingerprint;
+  }
+
   @Override
   public String toString() {
     return "ByteArrayTag{" +
@@ -77,14 +106,14 @@ public class ByteArrayTag extends BaseTag<byte[]> {
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     if (!includeColor) {
       builder.append('[');
       builder.append(PREFIX_BYTE_ARRAY + ";");
       int len = value.length, i = 0;
       for (byte element : value) {
         if (i >= 1 && i < len) builder.append(',');
-        builder.append(element);
+        appendNumber(builder, element);
         builder.append(SUFFIX_BYTE);
         i++;
       }
@@ -97,7 +126,7 @@ public class ByteArrayTag extends BaseTag<byte[]> {
       for (byte element : value) {
         if (i >= 1 && i < len) builder.append(", ");
         builder.append(COLOR_GOLD);
-        builder.append(element);
+        appendNumber(builder, element);
         builder.append(COLOR_RED);
         builder.append(SUFFIX_BYTE);
         builder.append(COLOR_RESET);
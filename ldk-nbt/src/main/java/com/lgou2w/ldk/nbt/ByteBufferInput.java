@@ -0,0 +1,191 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+final class ByteBufferInput implements DataInput {
+  @NotNull private final ByteBuffer buffer;
+  @Nullable private final NBTInternPool pool;
+  private byte[] scratch;
+
+  ByteBufferInput(@NotNull ByteBuffer buffer) {
+    this(buffer, null);
+  }
+
+  ByteBufferInput(@NotNull ByteBuffer buffer, @Nullable NBTInternPool pool) {
+    this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    this.pool = pool;
+  }
+
+  int position() {
+    return buffer.position();
+  }
+
+  void position(int position) {
+    buffer.position(position);
+  }
+
+  int remaining() {
+    return buffer.remaining();
+  }
+
+  @NotNull
+  ByteBuffer buffer() {
+    return buffer;
+  }
+
+  private void require(int length) throws EOFException {
+    if (buffer.remaining() < length) throw new EOFException(
+      "Unexpected end of buffer, required " + length + " bytes but only " + buffer.remaining() + " remaining");
+  }
+
+  int @NotNull [] readInts(int length) throws IOException {
+    require(length * 4L > Integer.MAX_VALUE ? Integer.MAX_VALUE : length * 4);
+    int[] values = new int[length];
+    buffer.asIntBuffer().get(values);
+    buffer.position(buffer.position() + length * 4);
+    return values;
+  }
+
+  long @NotNull [] readLongs(int length) throws IOException {
+    require(length * 8L > Integer.MAX_VALUE ? Integer.MAX_VALUE : length * 8);
+    long[] values = new long[length];
+    buffer.asLongBuffer().get(values);
+    buffer.position(buffer.position() + length * 8);
+    return values;
+  }
+
+  @Override
+  public void readFully(byte @NotNull [] b) throws IOException {
+    readFully(b, 0, b.length);
+  }
+
+  @Override
+  public void readFully(byte @NotNull [] b, int off, int len) throws IOException {
+    require(len);
+    buffer.get(b, off, len);
+  }
+
+  @Override
+  public int skipBytes(int n) {
+    int skip = Math.max(0, Math.min(n, buffer.remaining()));
+    buffer.position(buffer.position() + skip);
+    return skip;
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    require(1);
+    return buffer.get();
+  }
+
+  @Override
+  public int readUnsignedByte() throws IOException {
+    return readByte() & 0xFF;
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    require(2);
+    return buffer.getShort();
+  }
+
+  @Override
+  public int readUnsignedShort() throws IOException {
+    return readShort() & 0xFFFF;
+  }
+
+  @Override
+  public char readChar() throws IOException {
+    require(2);
+    return buffer.getChar();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    require(4);
+    return buffer.getInt();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    require(8);
+    return buffer.getLong();
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    require(4);
+    return buffer.getFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    require(8);
+    return buffer.getDouble();
+  }
+
+  @Override
+  public String readLine() throws IOException {
+    if (!buffer.hasRemaining()) return null;
+    StringBuilder builder = new StringBuilder();
+    while (buffer.hasRemaining()) {
+      char c = (char) (buffer.get() & 0xFF);
+      if (c == '\n') break;
+      if (c == '\r') {
+        if (buffer.hasRemaining() && buffer.get(buffer.position()) == '\n') buffer.get();
+        break;
+      }
+      builder.append(c);
+    }
+    return builder.toString();
+  }
+
+  @NotNull
+  @Override
+  public String readUTF() throws IOException {
+    int length = readUnsignedShort();
+    require(length);
+    if (buffer.hasArray()) {
+      int offset = buffer.arrayOffset() + buffer.position();
+      buffer.position(buffer.position() + length);
+      return decode(buffer.array(), offset, length);
+    }
+    byte[] bytes = scratch;
+    if (bytes == null || bytes.length < length) scratch = bytes = new byte[Math.max(length, 64)];
+    buffer.get(bytes, 0, length);
+    return decode(bytes, 0, length);
+  }
+
+  @NotNull
+  private String decode(byte @NotNull [] bytes, int offset, int length) throws IOException {
+    return pool != null ? pool.decode(bytes, offset, length) : ModifiedUTF8.decode(bytes, offset, length);
+  }
+}
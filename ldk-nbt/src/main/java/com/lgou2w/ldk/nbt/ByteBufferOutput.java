@@ -0,0 +1,195 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UTFDataFormatException;
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+final class ByteBufferOutput implements DataOutput {
+  @NotNull private ByteBuffer buffer;
+  private final boolean growable;
+
+  ByteBufferOutput(@NotNull ByteBuffer buffer, boolean growable) {
+    this.buffer = buffer.duplicate().order(ByteOrder.BIG_ENDIAN);
+    this.growable = growable;
+  }
+
+  ByteBufferOutput(int initialCapacity, boolean direct) {
+    this(direct ? ByteBuffer.allocateDirect(initialCapacity) : ByteBuffer.allocate(initialCapacity), true);
+  }
+
+  int position() {
+    return buffer.position();
+  }
+
+  @NotNull
+  ByteBuffer buffer() {
+    return buffer;
+  }
+
+  private void ensure(int length) {
+    if (buffer.remaining() >= length) return;
+    if (!growable) throw new BufferOverflowException();
+    int required = buffer.position() + length;
+    if (required < 0) throw new OutOfMemoryError("Required buffer capacity is too large");
+    int capacity = Math.max(required, buffer.capacity() << 1);
+    if (capacity < 0) capacity = Integer.MAX_VALUE - 8;
+    ByteBuffer newBuffer = buffer.isDirect()
+      ? ByteBuffer.allocateDirect(capacity)
+      : ByteBuffer.allocate(capacity);
+    buffer.flip();
+    newBuffer.order(ByteOrder.BIG_ENDIAN).put(buffer);
+    buffer = newBuffer;
+  }
+
+  void write(@NotNull ByteBuffer source) {
+    ensure(source.remaining());
+    buffer.put(source);
+  }
+
+  void putInt(int index, int value) {
+    buffer.putInt(index, value);
+  }
+
+  void writeTo(@NotNull DataOutput output) throws IOException {
+    ByteBuffer buffer = this.buffer;
+    if (buffer.hasArray()) {
+      output.write(buffer.array(), buffer.arrayOffset(), buffer.position());
+    } else {
+      ByteBuffer source = buffer.duplicate();
+      source.flip();
+      byte[] chunk = new byte[Math.min(source.remaining(), 8192)];
+      while (source.hasRemaining()) {
+        int length = Math.min(chunk.length, source.remaining());
+        source.get(chunk, 0, length);
+        output.write(chunk, 0, length);
+      }
+    }
+  }
+
+  void writeInts(int @NotNull [] values) {
+    writeInts(values, values.length);
+  }
+
+  void writeInts(int @NotNull [] values, int length) {
+    ensure(length * 4);
+    buffer.asIntBuffer().put(values, 0, length);
+    buffer.position(buffer.position() + length * 4);
+  }
+
+  void writeLongs(long @NotNull [] values) {
+    writeLongs(values, values.length);
+  }
+
+  void writeLongs(long @NotNull [] values, int length) {
+    ensure(length * 8);
+    buffer.asLongBuffer().put(values, 0, length);
+    buffer.position(buffer.position() + length * 8);
+  }
+
+  @Override
+  public void write(int b) {
+    ensure(1);
+    buffer.put((byte) b);
+  }
+
+  @Override
+  public void write(byte @NotNull [] b) {
+    write(b, 0, b.length);
+  }
+
+  @Override
+  public void write(byte @NotNull [] b, int off, int len) {
+    ensure(len);
+    buffer.put(b, off, len);
+  }
+
+  @Override
+  public void writeBoolean(boolean v) {
+    write(v ? 1 : 0);
+  }
+
+  @Override
+  public void writeByte(int v) {
+    write(v);
+  }
+
+  @Override
+  public void writeShort(int v) {
+    ensure(2);
+    buffer.putShort((short) v);
+  }
+
+  @Override
+  public void writeChar(int v) {
+    ensure(2);
+    buffer.putChar((char) v);
+  }
+
+  @Override
+  public void writeInt(int v) {
+    ensure(4);
+    buffer.putInt(v);
+  }
+
+  @Override
+  public void writeLong(long v) {
+    ensure(8);
+    buffer.putLong(v);
+  }
+
+  @Override
+  public void writeFloat(float v) {
+    ensure(4);
+    buffer.putFloat(v);
+  }
+
+  @Override
+  public void writeDouble(double v) {
+    ensure(8);
+    buffer.putDouble(v);
+  }
+
+  @Override
+  public void writeBytes(@NotNull String s) {
+    int len = s.length();
+    ensure(len);
+    for (int i = 0; i < len; i++) buffer.put((byte) s.charAt(i));
+  }
+
+  @Override
+  public void writeChars(@NotNull String s) {
+    int len = s.length();
+    ensure(len * 2);
+    for (int i = 0; i < len; i++) buffer.putChar(s.charAt(i));
+  }
+
+  @Override
+  public void writeUTF(@NotNull String s) throws UTFDataFormatException {
+    int utfLen = ModifiedUTF8.length(s);
+    if (utfLen > ModifiedUTF8.MAX_LENGTH) throw new UTFDataFormatException("Encoded string too long: " + utfLen + " bytes");
+    ensure(2 + utfLen);
+    buffer.putShort((short) utfLen);
+    ModifiedUTF8.encode(s, utfLen, buffer);
+  }
+}
@@ -0,0 +1,268 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+import java.util.Set;
+
+/*
+ *  Insertion-ordered map of compound entries. Up to 8 entries are kept in one array of alternating
+ *  keys and values and looked up by a linear scan, which avoids the table and the entry objects of a
+ *  LinkedHashMap for the small compounds that make up most of a tree. Past that, the entries move to
+ *  a LinkedHashMap for good, until the map is cleared.
+ */
+
+final class CompoundMap extends AbstractMap<String, BaseTag<?>> {
+  final static int THRESHOLD = 8;
+  private final static Object[] EMPTY = {};
+
+  private Object[] table; // key0, value0, key1, value1 ...
+  private int size;
+  @Nullable private LinkedHashMap<String, BaseTag<?>> map;
+  private int modCount;
+  @Nullable private EntrySet entrySet;
+
+  CompoundMap() {
+    this.table = EMPTY;
+  }
+
+  CompoundMap(int expectedSize) {
+    if (expectedSize > THRESHOLD) {
+      this.table = EMPTY;
+      this.map = new LinkedHashMap<>((int) (expectedSize / 0.75f) + 1);
+    } else {
+      this.table = expectedSize > 0 ? new Object[expectedSize * 2] : EMPTY;
+    }
+  }
+
+  CompoundMap(@NotNull Map<String, BaseTag<?>> m) {
+    if (m instanceof CompoundMap && ((CompoundMap) m).map == null) {
+      CompoundMap other = (CompoundMap) m;
+      this.table = other.size > 0 ? Arrays.copyOf(other.table, other.size * 2) : EMPTY;
+      this.size = other.size;
+    } else if (m.size() > THRESHOLD) {
+      this.table = EMPTY;
+      this.map = new LinkedHashMap<>(m);
+    } else {
+      this.table = m.isEmpty() ? EMPTY : new Object[m.size() * 2];
+      for (Map.Entry<String, BaseTag<?>> entry : m.entrySet()) put(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private int indexOf(@Nullable Object key) {
+    Object[] table = this.table;
+    for (int i = 0, end = size * 2; i < end; i += 2) {
+      if (Objects.equals(table[i], key)) return i;
+    }
+    return -1;
+  }
+
+  @Override
+  public int size() {
+    return map != null ? map.size() : size;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  public boolean containsKey(@Nullable Object key) {
+    if (map != null) return map.containsKey(key);
+    return indexOf(key) >= 0;
+  }
+
+  @Override
+  public BaseTag<?> get(@Nullable Object key) {
+    if (map != null) return map.get(key);
+    int index = indexOf(key);
+    return index >= 0 ? (BaseTag<?>) table[index + 1] : null;
+  }
+
+  @Override
+  public BaseTag<?> put(String key, BaseTag<?> value) {
+    if (map != null) return map.put(key, value);
+    int index = indexOf(key);
+    if (index >= 0) {
+      BaseTag<?> old = (BaseTag<?>) table[index + 1];
+      table[index + 1] = value;
+      return old;
+    }
+    if (size == THRESHOLD) {
+      promote().put(key, value);
+      return null;
+    }
+    int end = size * 2;
+    if (end == table.length) table = Arrays.copyOf(table, Math.min(Math.max(end * 2, 8), THRESHOLD * 2));
+    table[end] = key;
+    table[end + 1] = value;
+    size++;
+    modCount++;
+    return null;
+  }
+
+  @NotNull
+  private LinkedHashMap<String, BaseTag<?>> promote() {
+    LinkedHashMap<String, BaseTag<?>> map = new LinkedHashMap<>(THRESHOLD * 4);
+    for (int i = 0, end = size * 2; i < end; i += 2) map.put((String) table[i], (BaseTag<?>) table[i + 1]);
+    this.map = map;
+    this.table = EMPTY;
+    this.size = 0;
+    modCount++;
+    return map;
+  }
+
+  @Override
+  public BaseTag<?> remove(@Nullable Object key) {
+    if (map != null) return map.remove(key);
+    int index = indexOf(key);
+    if (index < 0) return null;
+    BaseTag<?> old = (BaseTag<?>) table[index + 1];
+    removeAt(index);
+    return old;
+  }
+
+  private void removeAt(int index) {
+    int end = size * 2;
+    System.arraycopy(table, index + 2, table, index, end - index - 2);
+    table[end - 2] = null;
+    table[end - 1] = null;
+    size--;
+    modCount++;
+  }
+
+  @Override
+  public void clear() {
+    map = null;
+    table = EMPTY;
+    size = 0;
+    modCount++;
+  }
+
+  @NotNull
+  @Override
+  public Set<Map.Entry<String, BaseTag<?>>> entrySet() {
+    EntrySet entrySet = this.entrySet;
+    if (entrySet == null) this.entrySet = entrySet = new EntrySet();
+    return entrySet;
+  }
+
+  // Dispatches on every call, the entries may move to the hash map after the view was created
+  private final class EntrySet extends AbstractSet<Map.Entry<String, BaseTag<?>>> {
+
+    @Override
+    public int size() {
+      return CompoundMap.this.size();
+    }
+
+    @Override
+    public void clear() {
+      CompoundMap.this.clear();
+    }
+
+    @NotNull
+    @Override
+    public Iterator<Map.Entry<String, BaseTag<?>>> iterator() {
+      return map != null ? map.entrySet().iterator() : new EntryIterator();
+    }
+  }
+
+  private final class EntryIterator implements Iterator<Map.Entry<String, BaseTag<?>>> {
+    private int next;
+    private int last = -1;
+    private int expectedModCount = modCount;
+
+    @Override
+    public boolean hasNext() {
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+      return next < size * 2;
+    }
+
+    @Override
+    public Map.Entry<String, BaseTag<?>> next() {
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+      if (next >= size * 2) throw new NoSuchElementException();
+      last = next;
+      next += 2;
+      return new Entry((String) table[last]);
+    }
+
+    @Override
+    public void remove() {
+      if (last < 0) throw new IllegalStateException();
+      if (modCount != expectedModCount) throw new ConcurrentModificationException();
+      removeAt(last);
+      next = last;
+      last = -1;
+      expectedModCount = modCount;
+    }
+  }
+
+  // Resolves the value by key, so the entry stays valid when other entries move
+  private final class Entry implements Map.Entry<String, BaseTag<?>> {
+    private final String key;
+
+    Entry(String key) {
+      this.key = key;
+    }
+
+    @Override
+    public String getKey() {
+      return key;
+    }
+
+    @Override
+    public BaseTag<?> getValue() {
+      return get(key);
+    }
+
+    @Override
+    public BaseTag<?> setValue(BaseTag<?> value) {
+      return put(key, value);
+    }
+
+    @Override
+    public boolean equals(Object o) {
+      if (this == o) return true;
+      if (!(o instanceof Map.Entry)) return false;
+      Map.Entry<?, ?> entry = (Map.Entry<?, ?>) o;
+      return Objects.equals(key, entry.getKey()) && Objects.equals(getValue(), entry.getValue());
+    }
+
+    @Override
+    public int hashCode() {
+      return Objects.hashCode(key) ^ Objects.hashCode(getValue());
+    }
+
+    @Override
+    public String toString() {
+      return key + "=" + getValue();
+    }
+  }
+}
@@ -24,7 +24,6 @@ import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
 import java.util.Collection;
-import java.util.LinkedHashMap;
 import java.util.Map;
 import java.util.NoSuchElementException;
 import java.util.Objects;
@@ -33,14 +32,20 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map<String, BaseTag<?>> {
+  private boolean shared; // value is the map of an immutable compound
 
   @Contract("null -> fail")
   public CompoundTag(Map<String, BaseTag<?>> value) {
-    super(new LinkedHashMap<>(value));
+    super(new CompoundMap(value));
   }
 
   public CompoundTag() {
-    super(new LinkedHashMap<>());
+    super(new CompoundMap());
+  }
+
+  CompoundTag(@NotNull Map<String, BaseTag<?>> value, boolean shared) {
+    super(value);
+    this.shared = shared;
   }
 
   @NotNull
@@ -58,16 +63,59 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
     return TagType.COMPOUND;
   }
 
+  @NotNull
+  @Override
+  public Map<String, BaseTag<?>> getValue() {
+    return owned();
+  }
+
   @Override
   public void setValue(Map<String, BaseTag<?>> value) {
-    super.setValue(new LinkedHashMap<>(value));
+    super.setValue(new CompoundMap(value));
+    shared = false;
+  }
+
+  /**
+   * The entries for reading without handing them out, they must not be modified.
+   */
+  @NotNull
+  Map<String, BaseTag<?>> entries() {
+    return value;
+  }
+
+  /**
+   * If the entries are still those of an immutable compound, they are copied on first access.
+   */
+  boolean isShared() {
+    return shared;
+  }
+
+  @NotNull
+  private Map<String, BaseTag<?>> owned() {
+    if (shared) {
+      Map<String, BaseTag<?>> newValue = new CompoundMap(value.size());
+      for (Map.Entry<String, BaseTag<?>> entry : value.entrySet())
+        newValue.put(entry.getKey(), entry.getValue().clone());
+      value = newValue;
+      shared = false;
+    }
+    return value;
+  }
+
+  @NotNull
+  public ImmutableCompoundTag toImmutable() {
+    return shared ? new ImmutableCompoundTag(value) : ImmutableCompoundTag.copyOf(this);
   }
 
   @Override
   public void read(@NotNull DataInput input) throws IOException {
-    NBTMetadata metadata;
-    while (!(metadata = NBTStreams.read(input)).isEndType()) {
-      value.put(metadata.getName(), metadata.getValue());
+    Map<String, BaseTag<?>> value = owned();
+    TagType type;
+    while ((type = TagType.fromId(input.readUnsignedByte())) != null && type != TagType.END) {
+      String name = input.readUTF();
+      BaseTag<?> base = TagType.create(type);
+      base.read(input);
+      value.put(name, base);
     }
   }
 
@@ -75,12 +123,39 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   public void write(@NotNull DataOutput output) throws IOException {
     for (Map.Entry<String, BaseTag<?>> entry : value.entrySet()) {
       BaseTag<?> value = entry.getValue();
-      String key = entry.getKey();
-      NBTStreams.write(output, NBTMetadata.of(key, value));
+      TagType type = value.getType();
+      output.writeByte(type.getId());
+      if (type == TagType.END) continue;
+      output.writeUTF(entry.getKey());
+      value.write(output);
     }
     output.writeByte(0); // END
   }
 
+  @Override
+  public int sizeInBytes() {
+    int size = 1; // END
+    for (Map.Entry<String, BaseTag<?>> entry : value.entrySet()) {
+      BaseTag<?> value = entry.getValue();
+      size++;
+      if (value.getType() == TagType.END) continue;
+      size += 2 + ModifiedUTF8.length(entry.getKey()) + value.sizeInBytes();
+    }
+    return size;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof CompoundTag)) return false;
+    return entries().equals(((CompoundTag) o).entries());
+  }
+
+  @Override
+  public int hashCode() {
+    return entries().hashCode();
+  }
+
   @Override
   public String toString() {
     return "CompoundTag{" +
@@ -89,9 +164,9 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     builder.append('{');
-    Set<Map.Entry<String, BaseTag<?>>> entrySet = entrySet();
+    Set<Map.Entry<String, BaseTag<?>>> entrySet = entries().entrySet();
     int len = entrySet.size(), i = 0;
 
     if (!includeColor) {
@@ -125,7 +200,8 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   @Override
   @NotNull
   public CompoundTag clone() {
-    Map<String, BaseTag<?>> newValue = new LinkedHashMap<>(value.size());
+    if (shared) return new CompoundTag(value, true);
+    Map<String, BaseTag<?>> newValue = new CompoundMap(value.size());
     for (Map.Entry<String, BaseTag<?>> entry : value.entrySet())
       newValue.put(entry.getKey(), entry.getValue().clone());
     return new CompoundTag(newValue);
@@ -226,9 +302,20 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
     String key,
     Class<T> expected,
     boolean nullable
+  ) throws NoSuchElementException, ClassCastException {
+    return find(key, expected, nullable, true);
+  }
+
+  @Nullable
+  @Contract("_, _, false, _ -> !null")
+  private <T extends BaseTag<?>> T find(
+    String key,
+    Class<T> expected,
+    boolean nullable,
+    boolean expose
   ) throws NoSuchElementException, ClassCastException {
     Objects.requireNonNull(key, "key");
-    BaseTag<?> value = this.value.get(key);
+    BaseTag<?> value = expose ? get(key) : peek(key);
     if (nullable && value == null) return null;
     if (value == null) throw new NoSuchElementException("Key value does not exist: " + key);
     TagType expectedType = TagType.fromClass(expected);
@@ -241,13 +328,13 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
 
   @NotNull
   private Number findNumber(@NotNull String key) throws NoSuchElementException, ClassCastException {
-    NumericTag<?> value = find(key, NumericTag.class, false);
+    NumericTag<?> value = find(key, NumericTag.class, false, false);
     return value.value;
   }
 
   @Nullable
   private Number findNumberOrNull(@NotNull String key) {
-    NumericTag<?> value = find(key, NumericTag.class, true);
+    NumericTag<?> value = find(key, NumericTag.class, true, false);
     return value != null ? value.value : null;
   }
 
@@ -465,14 +552,14 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   @NotNull
   @Contract("null -> fail")
   public String getString(String key) throws NoSuchElementException, ClassCastException  {
-    StringTag value = find(key, StringTag.class, false);
+    StringTag value = find(key, StringTag.class, false, false);
     return value.value;
   }
 
   @Nullable
   @Contract("null -> fail")
   public String getStringOrNull(String key) throws NoSuchElementException, ClassCastException  {
-    StringTag value = find(key, StringTag.class, true);
+    StringTag value = find(key, StringTag.class, true, false);
     return value != null ? value.value : null;
   }
 
@@ -617,7 +704,15 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   @Contract("null -> false")
   public boolean hasValue(@Nullable BaseTag<?> value) {
     if (value == null) return false;
-    return this.value.containsValue(value);
+    return entries().containsValue(value);
+  }
+
+  /**
+   * Get the value without handing it out, it must not be modified.
+   */
+  @Nullable
+  BaseTag<?> peek(@NotNull String key) {
+    return value.get(key);
   }
 
   /// Map
@@ -645,7 +740,7 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   @Contract("null -> null")
   public BaseTag<?> get(@Nullable Object key) {
     if (!(key instanceof String)) return null;
-    return value.get(key);
+    return owned().get(key);
   }
 
   @Override
@@ -656,41 +751,41 @@ public class CompoundTag extends BaseTag<Map<String, BaseTag<?>>> implements Map
   @NotNull
   @Override
   public Set<Entry<String, BaseTag<?>>> entrySet() {
-    return value.entrySet();
+    return owned().entrySet();
   }
 
   @NotNull
   @Override
   public Set<String> keySet() {
-    return value.keySet();
+    return owned().keySet();
   }
 
   @NotNull
   @Override
   public Collection<BaseTag<?>> values() {
-    return value.values();
+    return owned().values();
   }
 
   @Nullable
   @Override
   public BaseTag<?> put(String key, BaseTag<?> value) {
-    return this.value.put(key, value);
+    return owned().put(key, value);
   }
 
   @Override
   @Contract("null -> null")
   public BaseTag<?> remove(@Nullable Object key) {
     if (!(key instanceof String)) return null;
-    return value.remove(key);
+    return owned().remove(key);
   }
 
   @Override
   public void putAll(@NotNull Map<? extends String, ? extends BaseTag<?>> m) {
-    value.putAll(m);
+    owned().putAll(m);
   }
 
   @Override
   public void clear() {
-    value.clear();
+    owned().clear();
   }
 }
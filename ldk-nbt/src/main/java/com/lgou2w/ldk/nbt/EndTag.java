@@ -45,6 +45,11 @@ public final class EndTag extends BaseTag<Object> {
   @Override
   public void write(@NotNull DataOutput output) { }
 
+  @Override
+  public int sizeInBytes() {
+    return 0;
+  }
+
   @Override
   public String toString() {
     return "EndTag";
@@ -57,7 +62,7 @@ public final class EndTag extends BaseTag<Object> {
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) { }
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) { }
 
   @Override
   @NotNull
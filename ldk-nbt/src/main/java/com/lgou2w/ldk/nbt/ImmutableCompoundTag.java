@@ -0,0 +1,214 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+
+/**
+ * An immutable compound whose entries are shared between versions. {@link #with} and {@link #without}
+ * copy only this level, nested immutable compounds are shared. {@link #clone()} and {@link #toMutable()}
+ * are O(1) and return a mutable compound that copies a level on first modification or access to its values.
+ * Values other than immutable compounds are handed out as copies. The hash code, {@link #sizeInBytes()}
+ * and {@link #fingerprint()} are computed once, which makes immutable compounds cheap hash map keys.
+ *
+ * @see CompoundTag#toImmutable()
+ */
+public final class ImmutableCompoundTag extends CompoundTag {
+  @Nullable private NBTFingerprint fingerprint;
+  private int hash; // 0 if not computed yet, same as String
+  private int size = -1;
+
+  ImmutableCompoundTag(@NotNull Map<String, BaseTag<?>> value) {
+    super(value, false);
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public static ImmutableCompoundTag copyOf(CompoundTag tag) {
+    Objects.requireNonNull(tag, "tag");
+    if (tag instanceof ImmutableCompoundTag) return (ImmutableCompoundTag) tag;
+    Map<String, BaseTag<?>> entries = tag.entries();
+    Map<String, BaseTag<?>> value = new CompoundMap(entries.size());
+    for (Map.Entry<String, BaseTag<?>> entry : entries.entrySet())
+      value.put(entry.getKey(), freeze(entry.getValue()));
+    return new ImmutableCompoundTag(value);
+  }
+
+  @NotNull
+  private static BaseTag<?> freeze(@NotNull BaseTag<?> tag) {
+    if (tag instanceof CompoundTag) return ((CompoundTag) tag).toImmutable();
+    if (tag instanceof ListTag) return ((ListTag) tag).copy(ImmutableCompoundTag::freeze);
+    return tag.clone();
+  }
+
+  @NotNull
+  static BaseTag<?> expose(@NotNull BaseTag<?> tag) {
+    return tag instanceof ImmutableCompoundTag ? tag : tag.clone();
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public ImmutableCompoundTag with(String key, BaseTag<?> value) {
+    Objects.requireNonNull(key, "key");
+    Objects.requireNonNull(value, "value");
+    Map<String, BaseTag<?>> newValue = new CompoundMap(this.value);
+    newValue.put(key, freeze(value));
+    return new ImmutableCompoundTag(newValue);
+  }
+
+  @NotNull
+  public ImmutableCompoundTag without(@Nullable String key) {
+    if (key == null || !value.containsKey(key)) return this;
+    Map<String, BaseTag<?>> newValue = new CompoundMap(value);
+    newValue.remove(key);
+    return new ImmutableCompoundTag(newValue);
+  }
+
+  @NotNull
+  public CompoundTag toMutable() {
+    return new CompoundTag(value, true);
+  }
+
+  @NotNull
+  @Override
+  public ImmutableCompoundTag toImmutable() {
+    return this;
+  }
+
+  @Override
+  @NotNull
+  public CompoundTag clone() {
+    return toMutable();
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o instanceof ImmutableCompoundTag) {
+      ImmutableCompoundTag other = (ImmutableCompoundTag) o;
+      if (hash != 0 && other.hash != 0 && hash != other.hash) return false;
+    }
+    return super.equals(o);
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = this.hash;
+    if (hash == 0) this.hash = hash = super.hashCode();
+    return hash;
+  }
+
+  @Override
+  public int sizeInBytes() {
+    int size = this.size;
+    if (size == -1) this.size = size = super.sizeInBytes();
+    return size;
+  }
+
+  @NotNull
+  @Override
+  public NBTFingerprint fingerprint() {
+    NBTFingerprint fingerprint = this.fingerprint;
+    if (fingerprint == null) this.fingerprint = fingerprint = super.fingerprint();
+    return fingerprint;
+  }
+
+  @Override
+  public String toString() {
+    return "ImmutableCompoundTag{" +
+      "value=" + value +
+      '}';
+  }
+
+  /// Read
+
+  @Override
+  @Contract("null -> null")
+  public BaseTag<?> get(@Nullable Object key) {
+    BaseTag<?> value = key instanceof String ? this.value.get(key) : null;
+    return value != null ? expose(value) : null;
+  }
+
+  @NotNull
+  @Override
+  public Map<String, BaseTag<?>> getValue() {
+    Map<String, BaseTag<?>> exposed = new CompoundMap(value.size());
+    for (Map.Entry<String, BaseTag<?>> entry : value.entrySet())
+      exposed.put(entry.getKey(), expose(entry.getValue()));
+    return Collections.unmodifiableMap(exposed);
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<String, BaseTag<?>>> entrySet() {
+    return getValue().entrySet();
+  }
+
+  @NotNull
+  @Override
+  public Set<String> keySet() {
+    return Collections.unmodifiableSet(value.keySet());
+  }
+
+  @NotNull
+  @Override
+  public Collection<BaseTag<?>> values() {
+    return getValue().values();
+  }
+
+  /// Read-only
+
+  @Override
+  public void setValue(Map<String, BaseTag<?>> value) {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+
+  @Override
+  public void read(@NotNull DataInput input) {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+
+  @Nullable
+  @Override
+  public BaseTag<?> put(String key, BaseTag<?> value) {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+
+  @Override
+  public BaseTag<?> remove(@Nullable Object key) {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+
+  @Override
+  public void putAll(@NotNull Map<? extends String, ? extends BaseTag<?>> m) {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("ImmutableCompoundTag is read-only");
+  }
+}
@@ -18,6 +18,7 @@ package com.lgou2w.ldk.nbt;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
 import java.io.DataInput;
 import java.io.DataOutput;
@@ -25,6 +26,7 @@ import java.io.IOException;
 import java.util.Arrays;
 
 public class IntArrayTag extends BaseTag<int[]> {
+  @Nullable private NBTFingerprint fingerprint; // the array is only replaced by setValue and read
 
   @Contract("null -> fail")
   public IntArrayTag(int[] value) {
@@ -54,21 +56,57 @@ public class IntArrayTag extends BaseTag<int[]> {
     int[] newValue = new int[value.length];
     System.arraycopy(value, 0, newValue, 0, newValue.length);
     super.setValue(newValue);
+    fingerprint = null;
   }
 
   @Override
   public void read(@NotNull DataInput input) throws IOException {
-    int[] newValue = new int[input.readInt()];
-    for (int i = 0; i < newValue.length; i++) newValue[i] = input.readInt();
-    value = newValue;
+    int length = input.readInt();
+    if (input instanceof ByteBufferInput) {
+      value = ((ByteBufferInput) input).readInts(length);
+    } else {
+      int[] newValue = new int[length];
+      for (int i = 0; i < newValue.length; i++) newValue[i] = input.readInt();
+      value = newValue;
+    }
+    fingerprint = null;
   }
 
   @Override
   public void write(@NotNull DataOutput output) throws IOException {
     output.writeInt(value.length);
+    if (output instanceof ByteBufferOutput) {
+      ((ByteBufferOutput) output).writeInts(value);
+      return;
+    }
     for (int element : value) output.writeInt(element);
   }
 
+  @Override
+  public int sizeInBytes() {
+    return 4 + value.length * 4;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return Arrays.equals(value, ((IntArrayTag) o).value);
+  }
+
+  @Override
+  public int hashCode() {
+    return Arrays.hashCode(value);
+  }
+
+  @NotNull
+  @Override
+  public NBTFingerprint fingerprint() {
+    NBTFingerprint fingerprint = this.fingerprint;
+    if (fingerprint == null) this.fingerprint = fingerprint = super.fingerprint();
+    return fingerprint;
+  }
+
   @Override
   public String toString() {
     return "IntArrayTag{" +
@@ -77,14 +115,14 @@ public class IntArrayTag extends BaseTag<int[]> {
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     if (!includeColor) {
       builder.append('[');
       builder.append(PREFIX_INT_ARRAY + ";");
       int len = value.length, i = 0;
       for (int element : value) {
         if (i >= 1 && i < len) builder.append(',');
-        builder.append(element);
+        appendNumber(builder, element);
         i++;
       }
     } else {
@@ -96,7 +134,7 @@ public class IntArrayTag extends BaseTag<int[]> {
       for (int element : value) {
         if (i >= 1 && i < len) builder.append(", ");
         builder.append(COLOR_GOLD);
-        builder.append(element);
+        appendNumber(builder, element);
         builder.append(COLOR_RESET);
         i++;
       }
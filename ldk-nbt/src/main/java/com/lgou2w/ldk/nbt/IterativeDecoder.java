@@ -0,0 +1,255 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/*
+ *  Decoder that keeps the open compounds and lists on an explicit stack instead of the call stack,
+ *  so the nesting depth is only bounded by the limits. Every declared length is checked against the
+ *  remaining byte budget before it is allocated, so oversized inputs fail before using the memory.
+ *  With a dedup table, every finished compound and list is replaced by its canonical immutable tag.
+ */
+
+final class IterativeDecoder {
+  @NotNull private final DataInput input;
+  @Nullable private final NBTDedupTable table;
+  private final int maxDepth;
+  private final long maxBytes;
+  private final Deque<Frame> stack = new ArrayDeque<>();
+  private long bytes;
+
+  IterativeDecoder(@NotNull DataInput input, @NotNull NBTLimits limits, @Nullable NBTDedupTable table) {
+    this.input = input;
+    this.table = table;
+    this.maxDepth = limits.getMaxDepth();
+    this.maxBytes = limits.getMaxBytes();
+  }
+
+  @NotNull
+  NBTMetadata read() throws IOException {
+    TagType type = readType();
+    if (type == TagType.END) return NBTMetadata.END;
+    String name = readName();
+    BaseTag<?> root = begin(null, type);
+    while (!stack.isEmpty()) {
+      Frame frame = stack.peek();
+      if (frame.compound != null) {
+        TagType entryType = readType();
+        if (entryType == TagType.END) {
+          root = end(frame, table != null ? table.canonical(new ImmutableCompoundTag(frame.compound.entries())) : frame.compound, root);
+          continue;
+        }
+        String key = readName();
+        frame.compound.put(key, begin(key, entryType));
+      } else if (frame.remaining > 0) {
+        frame.remaining--;
+        frame.elements.add(begin(null, frame.elementType));
+      } else {
+        frame.list.setElements(frame.elementType, frame.elements);
+        root = end(frame, table != null ? table.canonical(frame.list) : frame.list, root);
+      }
+    }
+    // A canonical list is shared, the root is handed out as a copy like values of immutable compounds
+    if (table != null && root instanceof ListTag) root = ((ListTag) root).copy(ImmutableCompoundTag::expose);
+    return NBTMetadata.of(name, root);
+  }
+
+  // Pops the finished frame and replaces its tag in the parent if the tag was canonicalized
+  @NotNull
+  private BaseTag<?> end(@NotNull Frame frame, @NotNull BaseTag<?> tag, @NotNull BaseTag<?> root) {
+    stack.pop();
+    Frame parent = stack.peek();
+    if (parent == null) return tag;
+    if (tag != frame.tag) {
+      if (parent.compound != null) parent.compound.put(frame.key, tag);
+      else parent.elements.set(parent.elements.size() - 1, tag);
+    }
+    return root;
+  }
+
+  // Reads a leaf tag entirely, or pushes a frame that the loop fills in
+  @NotNull
+  private BaseTag<?> begin(@Nullable String key, @NotNull TagType type) throws IOException {
+    switch (type) {
+      case COMPOUND: {
+        CompoundTag compound = new CompoundTag();
+        push(new Frame(key, compound));
+        return compound;
+      }
+      case LIST: {
+        account(5);
+        TagType elementType = readElementType();
+        int length = readLength();
+        ListTag list = new ListTag();
+        if (length == 0 || elementType == TagType.END) {
+          list.setElements(elementType, new ArrayList<>());
+          return table != null ? table.canonical(list) : list;
+        }
+        int size = NBTStreams.fixedSize(elementType);
+        if (size > 0) {
+          account((long) length * size);
+          NumericList numeric = new NumericList(elementType, length);
+          numeric.read(input, length);
+          list.setElements(elementType, numeric);
+          return table != null ? table.canonical(list) : list;
+        }
+        reserve((long) length * minimumSize(elementType));
+        push(new Frame(key, list, elementType, length));
+        return list;
+      }
+      case STRING: {
+        account(2);
+        String value = input.readUTF();
+        account(ModifiedUTF8.length(value));
+        return new StringTag(value);
+      }
+      case BYTE_ARRAY: {
+        account(4);
+        int length = readLength();
+        account(length);
+        byte[] value = new byte[length];
+        input.readFully(value);
+        return new ByteArrayTag(value);
+      }
+      case INT_ARRAY: {
+        account(4);
+        int length = readLength();
+        account(length * 4L);
+        int[] value;
+        if (input instanceof ByteBufferInput) {
+          value = ((ByteBufferInput) input).readInts(length);
+        } else {
+          value = new int[length];
+          for (int i = 0; i < length; i++) value[i] = input.readInt();
+        }
+        return new IntArrayTag(value);
+      }
+      case LONG_ARRAY: {
+        account(4);
+        int length = readLength();
+        account(length * 8L);
+        long[] value;
+        if (input instanceof ByteBufferInput) {
+          value = ((ByteBufferInput) input).readLongs(length);
+        } else {
+          value = new long[length];
+          for (int i = 0; i < length; i++) value[i] = input.readLong();
+        }
+        return new LongArrayTag(value);
+      }
+      default: {
+        account(NBTStreams.fixedSize(type));
+        BaseTag<?> tag = TagType.create(type);
+        tag.read(input);
+        return tag;
+      }
+    }
+  }
+
+  private static int minimumSize(@NotNull TagType type) {
+    switch (type) {
+      case COMPOUND: return 1;
+      case STRING: return 2;
+      case BYTE_ARRAY: case INT_ARRAY: case LONG_ARRAY: return 4;
+      case LIST: return 5;
+      default: return NBTStreams.fixedSize(type);
+    }
+  }
+
+  private void push(@NotNull Frame frame) throws IOException {
+    if (stack.size() >= maxDepth)
+      throw new IOException("NBT is nested deeper than the limit of " + maxDepth);
+    stack.push(frame);
+  }
+
+  @NotNull
+  private TagType readType() throws IOException {
+    account(1);
+    return readElementType();
+  }
+
+  @NotNull
+  private TagType readElementType() throws IOException {
+    int id = input.readUnsignedByte();
+    TagType type = TagType.fromId(id);
+    if (type == null) throw new IOException("Unknown tag type: " + id);
+    return type;
+  }
+
+  @NotNull
+  private String readName() throws IOException {
+    account(2);
+    String name = input.readUTF();
+    account(ModifiedUTF8.length(name));
+    return name;
+  }
+
+  private int readLength() throws IOException {
+    int length = input.readInt();
+    if (length < 0) throw new IOException("Negative length: " + length);
+    return length;
+  }
+
+  private void account(long length) throws IOException {
+    reserve(length);
+    bytes += length;
+  }
+
+  // Checks that the given number of bytes still fits in the budget, without consuming it
+  private void reserve(long length) throws IOException {
+    if (length > maxBytes - bytes)
+      throw new IOException("NBT is larger than the limit of " + maxBytes + " bytes");
+  }
+
+  private final static class Frame {
+    @Nullable final String key; // of the entry in the parent compound
+    @NotNull final BaseTag<?> tag;
+    @Nullable final CompoundTag compound;
+    @Nullable final ListTag list;
+    @Nullable final TagType elementType;
+    @Nullable final List<BaseTag<?>> elements;
+    int remaining;
+
+    Frame(@Nullable String key, @NotNull CompoundTag compound) {
+      this.key = key;
+      this.tag = compound;
+      this.compound = compound;
+      this.list = null;
+      this.elementType = null;
+      this.elements = null;
+    }
+
+    Frame(@Nullable String key, @NotNull ListTag list, @NotNull TagType elementType, int length) {
+      this.key = key;
+      this.tag = list;
+      this.compound = null;
+      this.list = list;
+      this.elementType = elementType;
+      this.elements = new ArrayList<>(Math.min(length, 1024));
+      this.remaining = length;
+    }
+  }
+}
@@ -0,0 +1,328 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * A read-only compound view over binary NBT. The entry index is built on first access, and entries are
+ * decoded only when they are touched. Nested compounds are views too, other values are handed out as
+ * copies, so the view is always written back by copying its original bytes. Not thread-safe.
+ *
+ * @see NBTStreams#readView(ByteBuffer)
+ */
+public final class LazyCompoundTag extends CompoundTag {
+  @NotNull private final ByteBuffer source; // compound payload, including the END byte
+  private int count = -1;
+  private int size = -1; // distinct keys, a later duplicate replaces the earlier one
+  private String[] keys;
+  private TagType[] types;
+  private int[] payloads; // payload start
+  private int[] ends;
+  private BaseTag<?>[] decoded;
+  private Map<String, Integer> lookup;
+  private boolean materialized;
+
+  LazyCompoundTag(@NotNull ByteBuffer source) {
+    this.source = source;
+  }
+
+  private void index() {
+    if (count >= 0) return;
+    try {
+      ByteBufferInput input = new ByteBufferInput(source);
+      int capacity = 8;
+      String[] keys = new String[capacity];
+      TagType[] types = new TagType[capacity];
+      int[] payloads = new int[capacity], ends = new int[capacity];
+      int count = 0;
+      while (true) {
+        int id = input.readUnsignedByte();
+        TagType type = TagType.fromId(id);
+        if (type == null) throw new IOException("Unknown tag type id: " + id);
+        if (type == TagType.END) break;
+        if (count == capacity) {
+          capacity <<= 1;
+          keys = Arrays.copyOf(keys, capacity);
+          types = Arrays.copyOf(types, capacity);
+          payloads = Arrays.copyOf(payloads, capacity);
+          ends = Arrays.copyOf(ends, capacity);
+        }
+        keys[count] = input.readUTF();
+        types[count] = type;
+        payloads[count] = input.position();
+        NBTStreams.skip(input, type);
+        ends[count] = input.position();
+        count++;
+      }
+      this.keys = Arrays.copyOf(keys, count);
+      this.types = Arrays.copyOf(types, count);
+      this.payloads = Arrays.copyOf(payloads, count);
+      this.ends = Arrays.copyOf(ends, count);
+      this.count = count;
+    } catch (IOException e) {
+      throw new UncheckedIOException("Malformed NBT compound view", e);
+    }
+  }
+
+  private int indexOf(@NotNull String key) {
+    index();
+    if (count <= 8) {
+      for (int i = count - 1; i >= 0; i--)
+        if (keys[i].equals(key)) return i;
+      return -1;
+    }
+    Integer i = lookup().get(key);
+    return i != null ? i : -1;
+  }
+
+  @NotNull
+  private Map<String, Integer> lookup() {
+    if (lookup == null) {
+      lookup = new HashMap<>(count * 2);
+      for (int i = 0; i < count; i++) lookup.put(keys[i], i);
+    }
+    return lookup;
+  }
+
+  // Read-only views are shared, lists are copied with their elements exposed the same way
+  @NotNull
+  private static BaseTag<?> expose(@NotNull BaseTag<?> tag) {
+    if (tag instanceof LazyCompoundTag) return tag;
+    if (tag instanceof ListTag) return ((ListTag) tag).copy(LazyCompoundTag::expose);
+    return tag.clone();
+  }
+
+  @NotNull
+  private ByteBuffer slice(int from, int to) {
+    ByteBuffer slice = source.duplicate();
+    slice.limit(to).position(from);
+    return slice.slice();
+  }
+
+  @NotNull
+  private BaseTag<?> decode(int i) {
+    if (decoded == null) decoded = new BaseTag<?>[count];
+    BaseTag<?> tag = decoded[i];
+    if (tag != null) return tag;
+    ByteBuffer payload = slice(payloads[i], ends[i]);
+    try {
+      switch (types[i]) {
+        case COMPOUND:
+          tag = new LazyCompoundTag(payload);
+          break;
+        case LIST:
+          tag = decodeList(payload);
+          break;
+        default:
+          tag = TagType.create(types[i]);
+          tag.read(new ByteBufferInput(payload));
+      }
+    } catch (IOException e) {
+      throw new UncheckedIOException("Malformed NBT compound view entry: " + keys[i], e);
+    }
+    return decoded[i] = tag;
+  }
+
+  @NotNull
+  private static ListTag decodeList(@NotNull ByteBuffer payload) throws IOException {
+    ByteBufferInput input = new ByteBufferInput(payload);
+    TagType elementType = TagType.fromId(input.readUnsignedByte());
+    int length = input.readInt();
+    if (elementType != TagType.COMPOUND || length <= 0) {
+      ListTag list = new ListTag();
+      list.read(new ByteBufferInput(payload));
+      return list;
+    }
+    ListTag list = new ListTag();
+    for (int i = 0; i < length; i++) {
+      int start = input.position();
+      NBTStreams.skip(input, TagType.COMPOUND);
+      ByteBuffer element = payload.duplicate();
+      element.limit(input.position()).position(start);
+      list.add(new LazyCompoundTag(element.slice()));
+    }
+    return list;
+  }
+
+  private void materialize() {
+    if (materialized) return;
+    index();
+    for (int i = 0; i < count; i++) value.put(keys[i], decode(i));
+    materialized = true;
+  }
+
+  /// Read
+
+  @Override
+  public int size() {
+    if (size >= 0) return size;
+    index();
+    if (count > 8) return size = lookup().size();
+    int distinct = 0;
+    outer:
+    for (int i = 0; i < count; i++) {
+      for (int j = i + 1; j < count; j++)
+        if (keys[i].equals(keys[j])) continue outer;
+      distinct++;
+    }
+    return size = distinct;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    return size() == 0;
+  }
+
+  @Override
+  @Contract("null -> false")
+  public boolean hasKey(@Nullable String key) {
+    return key != null && indexOf(key) >= 0;
+  }
+
+  @Override
+  @Contract("null -> null")
+  public BaseTag<?> get(@Nullable Object key) {
+    if (!(key instanceof String)) return null;
+    int i = indexOf((String) key);
+    return i >= 0 ? expose(decode(i)) : null;
+  }
+
+  @Nullable
+  @Override
+  BaseTag<?> peek(@NotNull String key) {
+    int i = indexOf(key);
+    return i >= 0 ? decode(i) : null;
+  }
+
+  @NotNull
+  @Override
+  Map<String, BaseTag<?>> entries() {
+    materialize();
+    return value;
+  }
+
+  @NotNull
+  @Override
+  public Map<String, BaseTag<?>> getValue() {
+    materialize();
+    Map<String, BaseTag<?>> exposed = new CompoundMap(value.size());
+    for (Map.Entry<String, BaseTag<?>> entry : value.entrySet())
+      exposed.put(entry.getKey(), expose(entry.getValue()));
+    return Collections.unmodifiableMap(exposed);
+  }
+
+  @NotNull
+  @Override
+  public Set<Entry<String, BaseTag<?>>> entrySet() {
+    return getValue().entrySet();
+  }
+
+  @NotNull
+  @Override
+  public Set<String> keySet() {
+    materialize();
+    return Collections.unmodifiableSet(value.keySet());
+  }
+
+  @NotNull
+  @Override
+  public Collection<BaseTag<?>> values() {
+    return getValue().values();
+  }
+
+  @Override
+  public void write(@NotNull DataOutput output) throws IOException {
+    int length = source.limit();
+    if (output instanceof ByteBufferOutput) {
+      ((ByteBufferOutput) output).write(slice(0, length));
+    } else if (source.hasArray()) {
+      output.write(source.array(), source.arrayOffset(), length);
+    } else {
+      byte[] bytes = new byte[length];
+      slice(0, length).get(bytes);
+      output.write(bytes);
+    }
+  }
+
+  @Override
+  public int sizeInBytes() {
+    return source.limit();
+  }
+
+  @Override
+  public String toString() {
+    materialize();
+    return "LazyCompoundTag{" +
+      "value=" + value +
+      '}';
+  }
+
+  @Override
+  @NotNull
+  public CompoundTag clone() {
+    materialize();
+    return super.clone();
+  }
+
+  /// Read-only
+
+  @Override
+  public void setValue(Map<String, BaseTag<?>> value) {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+
+  @Override
+  public void read(@NotNull DataInput input) {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+
+  @Nullable
+  @Override
+  public BaseTag<?> put(String key, BaseTag<?> value) {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+
+  @Override
+  public BaseTag<?> remove(@Nullable Object key) {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+
+  @Override
+  public void putAll(@NotNull Map<? extends String, ? extends BaseTag<?>> m) {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+
+  @Override
+  public void clear() {
+    throw new UnsupportedOperationException("LazyCompoundTag is read-only");
+  }
+}
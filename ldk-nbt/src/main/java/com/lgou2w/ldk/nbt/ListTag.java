@@ -31,9 +31,11 @@ import java.util.List;
 import java.util.ListIterator;
 import java.util.Objects;
 import java.util.function.Consumer;
+import java.util.function.UnaryOperator;
 
 public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?>> {
   private @NotNull TagType elementType = TagType.END;
+  @Nullable NBTFingerprint canonical; // set by NBTDedupTable, canonical lists are never modified
 
   @Contract("null -> fail")
   public ListTag(List<BaseTag<?>> value) {
@@ -66,12 +68,52 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
     return elementType;
   }
 
+  // The elements to add the given type to, a numeric list only holds its own element type
+  @NotNull
+  private List<BaseTag<?>> elements(@NotNull TagType type) {
+    if (value instanceof NumericList && ((NumericList) value).getElementType() != type)
+      value = new ArrayList<>(value);
+    return value;
+  }
+
+  @NotNull
+  private List<BaseTag<?>> elements(@NotNull Collection<? extends BaseTag<?>> c) {
+    for (BaseTag<?> el : c) elements(el.getType());
+    return value;
+  }
+
+  // The elements to hand out, they must write through to the list so a numeric list is boxed first
+  @NotNull
+  private List<BaseTag<?>> boxed() {
+    if (value instanceof NumericList) value = new ArrayList<>(value);
+    return value;
+  }
+
+  @Nullable
+  private NumericList numeric(@NotNull TagType type, int capacity) {
+    if (value instanceof NumericList) {
+      NumericList numeric = (NumericList) value;
+      return numeric.getElementType() == type ? numeric : null;
+    }
+    if (capacity == 0 || !value.isEmpty() || (elementType != TagType.END && elementType != type)) return null;
+    NumericList numeric = new NumericList(type, capacity);
+    elementType = type;
+    value = numeric;
+    return numeric;
+  }
+
   @Override
   @NotNull
   public TagType getType() {
     return TagType.LIST;
   }
 
+  @NotNull
+  @Override
+  public List<BaseTag<?>> getValue() {
+    return boxed();
+  }
+
   @Override
   public void setValue(List<BaseTag<?>> value) {
     Objects.requireNonNull(value, "value");
@@ -85,6 +127,12 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
     if (elementType == null) elementType = TagType.END;
     int length = input.readInt();
     this.elementType = elementType;
+    if (NumericList.isSupported(elementType)) {
+      NumericList numeric = new NumericList(elementType, length);
+      numeric.read(input, length);
+      value = numeric;
+      return;
+    }
     value = new ArrayList<>();
     for (int i = 0; i < length; i++) {
       BaseTag<?> element = TagType.create(elementType);
@@ -93,13 +141,31 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
     }
   }
 
+  // Used by decoders that build the elements themselves, the elements are not checked
+  void setElements(@NotNull TagType elementType, @NotNull List<BaseTag<?>> elements) {
+    this.elementType = elementType;
+    this.value = elements;
+  }
+
   @Override
   public void write(@NotNull DataOutput output) throws IOException {
     output.writeByte(isEmpty() ? 0 : elementType.getId());
     output.writeInt(size());
+    if (value instanceof NumericList) {
+      ((NumericList) value).write(output);
+      return;
+    }
     for (BaseTag<?> el : value) el.write(output);
   }
 
+  @Override
+  public int sizeInBytes() {
+    int size = 5; // element type + length
+    if (value instanceof NumericList) return size + value.size() * NBTStreams.fixedSize(elementType);
+    for (BaseTag<?> el : value) size += el.sizeInBytes();
+    return size;
+  }
+
   @Override
   public boolean equals(Object o) {
     if (this == o) return true;
@@ -114,6 +180,13 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
     return Objects.hash(super.hashCode(), elementType);
   }
 
+  @NotNull
+  @Override
+  public NBTFingerprint fingerprint() {
+    NBTFingerprint canonical = this.canonical;
+    return canonical != null ? canonical : super.fingerprint();
+  }
+
   @Override
   public String toString() {
     return "ListTag{" +
@@ -123,9 +196,18 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     builder.append('[');
     int len = value.size(), i = 0;
+    if (value instanceof NumericList) {
+      NumericList numeric = (NumericList) value;
+      for (; i < len; i++) {
+        if (i >= 1) builder.append(!includeColor ? "," : ", ");
+        numeric.toMojangsonBuilder(builder, i, includeColor);
+      }
+      builder.append(']');
+      return;
+    }
     for (BaseTag<?> element : value) {
       if (i >= 1 && i < len) builder.append(!includeColor ? "," : ", ");
       element.toMojangsonBuilder(builder, includeColor);
@@ -137,9 +219,22 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Override
   @NotNull
   public ListTag clone() {
+    return copy(BaseTag::clone);
+  }
+
+  @NotNull
+  ListTag copy(@NotNull UnaryOperator<BaseTag<?>> copier) {
+    if (value instanceof NumericList) {
+      ListTag tag = new ListTag();
+      tag.elementType = elementType;
+      tag.value = ((NumericList) value).copy();
+      return tag;
+    }
     List<BaseTag<?>> newValue = new ArrayList<>(value.size());
-    for (BaseTag<?> el : value) newValue.add(el.clone());
-    return new ListTag(newValue);
+    for (BaseTag<?> el : value) newValue.add(copier.apply(el));
+    ListTag tag = new ListTag(newValue);
+    tag.elementType = elementType;
+    return tag;
   }
 
   /// Extended
@@ -147,6 +242,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addByte(byte... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.BYTE, values.length);
+    if (numeric != null) {
+      for (byte element : values) numeric.addByte(element);
+      return this;
+    }
     List<ByteTag> c = new ArrayList<>(values.length);
     for (byte element : values) c.add(new ByteTag(element));
     addAll(c);
@@ -156,6 +256,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addByte(int... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.BYTE, values.length);
+    if (numeric != null) {
+      for (int element : values) numeric.addByte((byte) element);
+      return this;
+    }
     List<ByteTag> c = new ArrayList<>(values.length);
     for (int element : values) c.add(new ByteTag((byte) element));
     addAll(c);
@@ -165,6 +270,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addShort(short... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.SHORT, values.length);
+    if (numeric != null) {
+      for (short element : values) numeric.addShort(element);
+      return this;
+    }
     List<ShortTag> c = new ArrayList<>(values.length);
     for (short element : values) c.add(new ShortTag(element));
     addAll(c);
@@ -174,6 +284,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addShort(int... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.SHORT, values.length);
+    if (numeric != null) {
+      for (int element : values) numeric.addShort((short) element);
+      return this;
+    }
     List<ShortTag> c = new ArrayList<>(values.length);
     for (int element : values) c.add(new ShortTag((short) element));
     addAll(c);
@@ -183,6 +298,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addInt(int... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.INT, values.length);
+    if (numeric != null) {
+      for (int element : values) numeric.addInt(element);
+      return this;
+    }
     List<IntTag> c = new ArrayList<>(values.length);
     for (int element : values) c.add(new IntTag(element));
     addAll(c);
@@ -192,6 +312,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addLong(long... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.LONG, values.length);
+    if (numeric != null) {
+      for (long element : values) numeric.addLong(element);
+      return this;
+    }
     List<LongTag> c = new ArrayList<>(values.length);
     for (long element : values) c.add(new LongTag(element));
     addAll(c);
@@ -201,6 +326,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addFloat(float... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.FLOAT, values.length);
+    if (numeric != null) {
+      for (float element : values) numeric.addFloat(element);
+      return this;
+    }
     List<FloatTag> c = new ArrayList<>(values.length);
     for (float element : values) c.add(new FloatTag(element));
     addAll(c);
@@ -210,6 +340,11 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addDouble(double... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.DOUBLE, values.length);
+    if (numeric != null) {
+      for (double element : values) numeric.addDouble(element);
+      return this;
+    }
     List<DoubleTag> c = new ArrayList<>(values.length);
     for (double element : values) c.add(new DoubleTag(element));
     addAll(c);
@@ -269,18 +404,70 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Contract("null -> fail; !null -> this")
   public ListTag addBoolean(boolean... values) {
     Objects.requireNonNull(values, "values");
+    NumericList numeric = numeric(TagType.BYTE, values.length);
+    if (numeric != null) {
+      for (boolean element : values) numeric.addByte((byte) (element ? 1 : 0));
+      return this;
+    }
     List<ByteTag> c = new ArrayList<>(values.length);
     for (boolean element : values) c.add(new ByteTag((byte) (element ? 1 : 0)));
     addAll(c);
     return this;
   }
 
+  @Nullable
+  private NumericList numeric() {
+    return value instanceof NumericList ? (NumericList) value : null;
+  }
+
+  @NotNull
+  private Number number(int index) throws ClassCastException {
+    BaseTag<?> element = value.get(index);
+    if (!(element instanceof NumericTag))
+      throw new ClassCastException("Element of type '" + element.getType() + "' is not numeric.");
+    return ((NumericTag<?>) element).value;
+  }
+
+  public byte getByte(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? (byte) numeric.intAt(index) : number(index).byteValue();
+  }
+
+  public short getShort(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? (short) numeric.intAt(index) : number(index).shortValue();
+  }
+
+  public int getInt(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? numeric.intAt(index) : number(index).intValue();
+  }
+
+  public long getLong(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? numeric.longAt(index) : number(index).longValue();
+  }
+
+  public float getFloat(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? numeric.floatAt(index) : number(index).floatValue();
+  }
+
+  public double getDouble(int index) throws IndexOutOfBoundsException, ClassCastException {
+    NumericList numeric = numeric();
+    return numeric != null ? numeric.doubleAt(index) : number(index).doubleValue();
+  }
+
+  public boolean getBoolean(int index) throws IndexOutOfBoundsException, ClassCastException {
+    return getByte(index) != 0;
+  }
+
   /// List
 
   @NotNull
   @Override
   public Iterator<BaseTag<?>> iterator() {
-    return value.iterator();
+    return boxed().iterator();
   }
 
   @Override
@@ -300,7 +487,7 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
 
   @Override
   public BaseTag<?> get(int index) {
-    return value.get(index);
+    return boxed().get(index);
   }
 
   @Override
@@ -321,25 +508,25 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Override
   public boolean add(BaseTag<?> element) {
     checkElement(element);
-    return value.add(element);
+    return elements(element.getType()).add(element);
   }
 
   @Override
   public void add(int index, BaseTag<?> element) {
     checkElement(element);
-    value.add(index, element);
+    elements(element.getType()).add(index, element);
   }
 
   @Override
   public boolean addAll(int index, @NotNull Collection<? extends BaseTag<?>> c) {
     for (BaseTag<?> el : c) checkElement(el);
-    return value.addAll(index, c);
+    return elements(c).addAll(index, c);
   }
 
   @Override
   public boolean addAll(@NotNull Collection<? extends BaseTag<?>> c) {
     for (BaseTag<?> el : c) checkElement(el);
-    return value.addAll(c);
+    return elements(c).addAll(c);
   }
 
   @Override
@@ -350,13 +537,13 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @NotNull
   @Override
   public ListIterator<BaseTag<?>> listIterator() {
-    return value.listIterator();
+    return boxed().listIterator();
   }
 
   @NotNull
   @Override
   public ListIterator<BaseTag<?>> listIterator(int index) {
-    return value.listIterator(index);
+    return boxed().listIterator(index);
   }
 
   @Override
@@ -393,24 +580,24 @@ public class ListTag extends BaseTag<List<BaseTag<?>>> implements List<BaseTag<?
   @Override
   public BaseTag<?> set(int index, BaseTag<?> element) {
     checkElement(element);
-    return value.set(index, element);
+    return elements(element.getType()).set(index, element);
   }
 
   @NotNull
   @Override
   public List<BaseTag<?>> subList(int fromIndex, int toIndex) {
-    return value.subList(fromIndex, toIndex);
+    return boxed().subList(fromIndex, toIndex);
   }
 
   @NotNull
   @Override
   public Object[] toArray() {
-    return value.toArray();
+    return boxed().toArray();
   }
 
   @NotNull
   @Override
   public <T> T[] toArray(@NotNull T[] a) {
-    return value.toArray(a);
+    return boxed().toArray(a);
   }
 }
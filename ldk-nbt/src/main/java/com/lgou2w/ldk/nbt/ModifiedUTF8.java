@@ -0,0 +1,106 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.UTFDataFormatException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/*
+ *  Modified UTF-8 codec, see: java.io.DataInput#readUTF and java.io.DataOutput#writeUTF
+ */
+
+final class ModifiedUTF8 {
+
+  private ModifiedUTF8() { }
+
+  final static int MAX_LENGTH = 65535;
+
+  static int length(@NotNull String str) {
+    int strLen = str.length();
+    int utfLen = strLen;
+    for (int i = 0; i < strLen; i++) {
+      char c = str.charAt(i);
+      if (c >= 0x80 || c == 0) utfLen += (c >= 0x800) ? 2 : 1;
+    }
+    return utfLen;
+  }
+
+  static void encode(@NotNull String str, int utfLen, @NotNull ByteBuffer buffer) {
+    int strLen = str.length();
+    if (utfLen == strLen) {
+      for (int i = 0; i < strLen; i++) buffer.put((byte) str.charAt(i));
+      return;
+    }
+    for (int i = 0; i < strLen; i++) {
+      char c = str.charAt(i);
+      if (c < 0x80 && c != 0) {
+        buffer.put((byte) c);
+      } else if (c >= 0x800) {
+        buffer.put((byte) (0xE0 | ((c >> 12) & 0x0F)));
+        buffer.put((byte) (0x80 | ((c >> 6) & 0x3F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      } else {
+        buffer.put((byte) (0xC0 | ((c >> 6) & 0x1F)));
+        buffer.put((byte) (0x80 | (c & 0x3F)));
+      }
+    }
+  }
+
+  @NotNull
+  static String decode(byte @NotNull [] bytes, int offset, int length) throws UTFDataFormatException {
+    int end = offset + length;
+    int i = offset;
+    while (i < end && bytes[i] > 0) i++;
+    if (i == end) return new String(bytes, offset, length, StandardCharsets.ISO_8859_1); // ASCII only
+    char[] chars = new char[length];
+    int count = 0;
+    for (int j = offset; j < i; j++) chars[count++] = (char) bytes[j];
+    while (i < end) {
+      int c = bytes[i] & 0xFF;
+      switch (c >> 4) {
+        case 0: case 1: case 2: case 3: case 4: case 5: case 6: case 7:
+          i++;
+          chars[count++] = (char) c;
+          break;
+        case 12: case 13: {
+          if (i + 2 > end) throw new UTFDataFormatException("Malformed input: partial character at end");
+          int c2 = bytes[i + 1];
+          if ((c2 & 0xC0) != 0x80) throw new UTFDataFormatException("Malformed input around byte " + (i - offset + 1));
+          chars[count++] = (char) (((c & 0x1F) << 6) | (c2 & 0x3F));
+          i += 2;
+          break;
+        }
+        case 14: {
+          if (i + 3 > end) throw new UTFDataFormatException("Malformed input: partial character at end");
+          int c2 = bytes[i + 1];
+          int c3 = bytes[i + 2];
+          if (((c2 & 0xC0) != 0x80) || ((c3 & 0xC0) != 0x80))
+            throw new UTFDataFormatException("Malformed input around byte " + (i - offset + 2));
+          chars[count++] = (char) (((c & 0x0F) << 12) | ((c2 & 0x3F) << 6) | (c3 & 0x3F));
+          i += 3;
+          break;
+        }
+        default:
+          throw new UTFDataFormatException("Malformed input around byte " + (i - offset));
+      }
+    }
+    return new String(chars, 0, count);
+  }
+}
@@ -23,11 +23,15 @@ package com.lgou2w.ldk.nbt;
 
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
 
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Objects;
-import java.util.regex.Pattern;
 
 /*
  *  Modify: Mojang brigadier MojangsonParser and StringReader
@@ -35,9 +39,9 @@ import java.util.regex.Pattern;
  */
 
 public final class MojangsonParser {
-  @NotNull private final StringReader reader;
+  @NotNull private final CharReader reader;
 
-  private MojangsonParser(@NotNull StringReader reader) {
+  private MojangsonParser(@NotNull CharReader reader) {
     this.reader = reader;
   }
 
@@ -45,7 +49,7 @@ public final class MojangsonParser {
   @Contract("null -> fail; !null -> !null")
   public static BaseTag<?> parse(String mojangson) throws IllegalArgumentException {
     Objects.requireNonNull(mojangson, "mojangson");
-    StringReader reader = new StringReader(mojangson);
+    CharReader reader = new CharReader(mojangson);
     return new MojangsonParser(reader).readValue();
   }
 
@@ -53,77 +57,182 @@ public final class MojangsonParser {
   @Contract("null -> fail; !null -> !null")
   public static CompoundTag parseCompound(String mojangson) throws IllegalArgumentException {
     Objects.requireNonNull(mojangson, "mojangson");
-    StringReader reader = new StringReader(mojangson);
+    CharReader reader = new CharReader(mojangson);
     return new MojangsonParser(reader).readSingleStruct();
   }
 
+  /**
+   * Parse the first value from the given reader. The text is read through a bounded buffer instead of
+   * being loaded into memory as a whole, the reader is not closed.
+   */
+  @NotNull
+  @Contract("null -> fail; !null -> !null")
+  public static BaseTag<?> parse(Reader mojangson) throws IllegalArgumentException, IOException {
+    Objects.requireNonNull(mojangson, "mojangson");
+    CharReader reader = new CharReader(mojangson, DEFAULT_BUFFER_CAPACITY);
+    try {
+      return new MojangsonParser(reader).readValue();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  @NotNull
+  @Contract("null -> fail; !null -> !null")
+  public static CompoundTag parseCompound(Reader mojangson) throws IllegalArgumentException, IOException {
+    Objects.requireNonNull(mojangson, "mojangson");
+    CharReader reader = new CharReader(mojangson, DEFAULT_BUFFER_CAPACITY);
+    try {
+      return new MojangsonParser(reader).readSingleStruct();
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+  }
+
+  private final static int DEFAULT_BUFFER_CAPACITY = 8192;
+
   @NotNull
   private CompoundTag readSingleStruct() {
     CompoundTag compound = readStruct();
     reader.skipWhitespace();
-    if (reader.canRead()) throw new IllegalArgumentException("Unexpected trailing data.");
+    if (reader.canRead()) throw reader.error("Unexpected trailing data.");
     return compound;
   }
 
   @NotNull
   private String readKey() {
     reader.skipWhitespace();
-    if (!reader.canRead()) throw new IllegalArgumentException("Expected key.");
+    if (!reader.canRead()) throw reader.error("Expected key.");
     return reader.readString();
   }
 
   @NotNull
   private BaseTag<?> readTypedValue() {
     reader.skipWhitespace();
-    int start = reader.cursor;
-    if (reader.peek() == StringReader.SYNTAX_DOUBLE_QUOTE)
+    int start = reader.getCursor();
+    if (reader.peek() == CharReader.SYNTAX_DOUBLE_QUOTE)
       return new StringTag(reader.readQuotedString());
     String str = reader.readUnquotedString();
     if (str.isEmpty()) {
-      reader.cursor = start;
-      throw new IllegalArgumentException("Expected value.");
+      reader.setCursor(start);
+      throw reader.error("Expected value.");
     }
     return parseString(str);
   }
 
-  private final static Pattern PATTERN_DOUBLE_NOSUFFIX = Pattern.compile("[-+]?(?:[0-9]+[.]|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_DOUBLE = Pattern.compile("[-+]?(?:[0-9]+[.]|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?d", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_FLOAT = Pattern.compile("[-+]?(?:[0-9]+[.]?|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?f", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_BYTE = Pattern.compile("[-+]?(?:0|[1-9][0-9]*)b", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_SHORT = Pattern.compile("[-+]?(?:0|[1-9][0-9]*)s", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_LONG = Pattern.compile("[-+]?(?:0|[1-9][0-9]*)l", Pattern.CASE_INSENSITIVE);
-  private final static Pattern PATTERN_INT = Pattern.compile("[-+]?(?:0|[1-9][0-9]*)", Pattern.CASE_INSENSITIVE);
-
   @NotNull
   private BaseTag<?> parseString(String str) {
-    try {
-      if (PATTERN_FLOAT.matcher(str).matches())
-        return new FloatTag(Float.parseFloat(str.substring(0, str.length() - 1)));
-      if (PATTERN_BYTE.matcher(str).matches())
-        return new ByteTag(Byte.parseByte(str.substring(0, str.length() - 1)));
-      if (PATTERN_SHORT.matcher(str).matches())
-        return new ShortTag(Short.parseShort(str.substring(0, str.length() - 1)));
-      if (PATTERN_LONG.matcher(str).matches())
-        return new LongTag(Long.parseLong(str.substring(0, str.length() - 1)));
-      if (PATTERN_INT.matcher(str).matches())
-        return new IntTag(Integer.parseInt(str));
-      if (PATTERN_DOUBLE.matcher(str).matches())
-        return new DoubleTag(Double.parseDouble(str.substring(0, str.length() - 1)));
-      if (PATTERN_DOUBLE_NOSUFFIX.matcher(str).matches())
-        return new DoubleTag(Double.parseDouble(str));
-      if (str.equals("true"))
-        return new ByteTag((byte) 1);
-      if (str.equals("false"))
-        return new ByteTag((byte) 0);
-    } catch (NumberFormatException ignore) {
-    }
+    BaseTag<?> number = parseNumber(str);
+    if (number != null)
+      return number;
+    if (str.equals("true"))
+      return new ByteTag((byte) 1);
+    if (str.equals("false"))
+      return new ByteTag((byte) 0);
     return new StringTag(str);
   }
 
+  private static boolean isDigit(char c) {
+    return c >= '0' && c <= '9';
+  }
+
+  /**
+   * Single pass over the literal with the same typing as the patterns:
+   * <pre>
+   *   float   [-+]?(?:[0-9]+[.]?|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?f
+   *   byte    [-+]?(?:0|[1-9][0-9]*)b
+   *   short   [-+]?(?:0|[1-9][0-9]*)s
+   *   long    [-+]?(?:0|[1-9][0-9]*)l
+   *   int     [-+]?(?:0|[1-9][0-9]*)
+   *   double  [-+]?(?:[0-9]+[.]|[0-9]*[.][0-9]+)(?:e[-+]?[0-9]+)?d?
+   * </pre>
+   * Case-insensitive, integers out of range are not numbers.
+   */
+  @Nullable
+  private static BaseTag<?> parseNumber(@NotNull String str) {
+    int len = str.length(), i = 0;
+    char c = str.charAt(0);
+    boolean negative = c == '-';
+    if (negative || c == '+') i++;
+    int intStart = i;
+    while (i < len && isDigit(str.charAt(i))) i++;
+    int intEnd = i;
+    boolean dot = false;
+    int fracDigits = 0;
+    if (i < len && str.charAt(i) == '.') {
+      dot = true;
+      int fracStart = ++i;
+      while (i < len && isDigit(str.charAt(i))) i++;
+      fracDigits = i - fracStart;
+    }
+    if (intEnd == intStart && fracDigits == 0) return null;
+    boolean exponent = false;
+    if (i < len && (str.charAt(i) == 'e' || str.charAt(i) == 'E')) {
+      int j = i + 1;
+      if (j < len && (str.charAt(j) == '-' || str.charAt(j) == '+')) j++;
+      int expStart = j;
+      while (j < len && isDigit(str.charAt(j))) j++;
+      if (j == expStart) return null;
+      exponent = true;
+      i = j;
+    }
+    if (i == len) {
+      if (dot) return new DoubleTag(Double.parseDouble(str));
+      if (exponent) return null;
+      return parseInteger(str, intStart, intEnd, negative, TagType.INT);
+    }
+    if (i != len - 1) return null;
+    // Float.parseFloat and Double.parseDouble accept the type suffix
+    switch (str.charAt(i)) {
+      case 'f': case 'F':
+        return new FloatTag(Float.parseFloat(str));
+      case 'd': case 'D':
+        return dot ? new DoubleTag(Double.parseDouble(str)) : null;
+      case 'b': case 'B':
+        return dot || exponent ? null : parseInteger(str, intStart, intEnd, negative, TagType.BYTE);
+      case 's': case 'S':
+        return dot || exponent ? null : parseInteger(str, intStart, intEnd, negative, TagType.SHORT);
+      case 'l': case 'L':
+        return dot || exponent ? null : parseInteger(str, intStart, intEnd, negative, TagType.LONG);
+      default:
+        return null;
+    }
+  }
+
+  @Nullable
+  private static BaseTag<?> parseInteger(@NotNull String str, int start, int end, boolean negative, @NotNull TagType type) {
+    if (end - start > 1 && str.charAt(start) == '0') return null;
+    long min, max;
+    switch (type) {
+      case BYTE: min = Byte.MIN_VALUE; max = Byte.MAX_VALUE; break;
+      case SHORT: min = Short.MIN_VALUE; max = Short.MAX_VALUE; break;
+      case INT: min = Integer.MIN_VALUE; max = Integer.MAX_VALUE; break;
+      default: min = Long.MIN_VALUE; max = Long.MAX_VALUE; break;
+    }
+    // Accumulate negatively like Long.parseLong, so that the min value fits
+    long limit = negative ? min : -max;
+    long multmin = limit / 10;
+    long result = 0;
+    for (int i = start; i < end; i++) {
+      int digit = str.charAt(i) - '0';
+      if (result < multmin) return null;
+      result *= 10;
+      if (result < limit + digit) return null;
+      result -= digit;
+    }
+    long value = negative ? result : -result;
+    switch (type) {
+      case BYTE: return new ByteTag((byte) value);
+      case SHORT: return new ShortTag((short) value);
+      case INT: return new IntTag((int) value);
+      default: return new LongTag(value);
+    }
+  }
+
   @NotNull
   private BaseTag<?> readValue() {
     reader.skipWhitespace();
-    if (!reader.canRead()) throw new IllegalArgumentException("Expected value.");
+    if (!reader.canRead()) throw reader.error("Expected value.");
     char c = reader.peek();
     if (c == '{') return readStruct();
     else if (c == '[') return readArrayOrList();
@@ -133,7 +242,7 @@ public final class MojangsonParser {
   @NotNull
   private BaseTag<?> readArrayOrList() {
     if (reader.canRead(3) &&
-      reader.peek(1) != StringReader.SYNTAX_DOUBLE_QUOTE &&
+      reader.peek(1) != CharReader.SYNTAX_DOUBLE_QUOTE &&
       reader.peek(2) == ';') return readArray();
     else return readList();
   }
@@ -144,16 +253,16 @@ public final class MojangsonParser {
     reader.skipWhitespace();
     CompoundTag compound = new CompoundTag();
     while (reader.canRead() && reader.peek() != '}') {
-      int start = reader.cursor;
+      int start = reader.getCursor();
       String key = readKey();
       if (key.isEmpty()) {
-        reader.cursor = start;
-        throw new IllegalArgumentException("Expected key.");
+        reader.setCursor(start);
+        throw reader.error("Expected key.");
       }
       expect(':');
       compound.put(key, readValue());
       if (!hasElementSeparator()) break;
-      if (!reader.canRead()) throw new IllegalArgumentException("Expected key.");
+      if (!reader.canRead()) throw reader.error("Expected key.");
     }
     expect('}');
     return compound;
@@ -163,20 +272,20 @@ public final class MojangsonParser {
   private BaseTag<?> readList() {
     expect('[');
     reader.skipWhitespace();
-    if (!reader.canRead()) throw new IllegalArgumentException("Expected value.");
+    if (!reader.canRead()) throw reader.error("Expected value.");
     ListTag list = new ListTag();
     TagType elementType = TagType.END;
     while (reader.peek() != ']') {
-      int start = reader.cursor;
+      int start = reader.getCursor();
       BaseTag<?> element = readValue();
       if (elementType == TagType.END) elementType = element.getType();
       else if (element.getType() != elementType) {
-        reader.cursor = start;
-        throw new IllegalArgumentException("Can't insert '" + element.getType() + "' type into '" + elementType + "' element type list.");
+        reader.setCursor(start);
+        throw reader.error("Can't insert '" + element.getType() + "' type into '" + elementType + "' element type list.");
       }
       list.add(element);
       if (!hasElementSeparator()) break;
-      if (!reader.canRead()) throw new IllegalArgumentException("Expected value.");
+      if (!reader.canRead()) throw reader.error("Expected value.");
     }
     expect(']');
     return list;
@@ -185,11 +294,11 @@ public final class MojangsonParser {
   @NotNull
   private BaseTag<?> readArray() {
     expect('[');
-    int start = reader.cursor;
+    int start = reader.getCursor();
     char c = reader.read();
     reader.read();
     reader.skipWhitespace();
-    if (!reader.canRead()) throw new IllegalArgumentException("Expected value.");
+    if (!reader.canRead()) throw reader.error("Expected value.");
     if (c == BaseTag.PREFIX_BYTE_ARRAY) {
       Number[] elements = readArrayElements(TagType.BYTE_ARRAY, TagType.BYTE);
       byte[] unboxes = new byte[elements.length];
@@ -206,8 +315,8 @@ public final class MojangsonParser {
       for (int i = 0; i < unboxes.length; i++) unboxes[i] = elements[i].longValue();
       return new LongArrayTag(unboxes);
     } else {
-      reader.cursor = start;
-      throw new IllegalArgumentException("Invalid array type: " + c);
+      reader.setCursor(start);
+      throw reader.error("Invalid array type: " + c);
     }
   }
 
@@ -216,16 +325,16 @@ public final class MojangsonParser {
     List<Number> elements = new ArrayList<>();
     while (true) {
       if (reader.peek() != ']') {
-        int start = this.reader.cursor;
+        int start = reader.getCursor();
         @SuppressWarnings("unchecked")
         NumericTag<Number> base = (NumericTag<Number>) readValue();
         if (base.getType() != elementType) {
-          reader.cursor = start;
-          throw new IllegalArgumentException("Can't insert '" + base.getType() + "' type into '" + arrayType + "' type array.");
+          reader.setCursor(start);
+          throw reader.error("Can't insert '" + base.getType() + "' type into '" + arrayType + "' type array.");
         }
         elements.add(base.value);
         if (hasElementSeparator()) {
-          if (!reader.canRead()) throw new IllegalArgumentException("Expected value.");
+          if (!reader.canRead()) throw reader.error("Expected value.");
           continue;
         }
       }
@@ -250,14 +359,32 @@ public final class MojangsonParser {
     reader.expect(c);
   }
 
-  private final static class StringReader {
-    @NotNull final String str;
-    final int strLen;
-    int cursor = 0;
-
-    StringReader(@NotNull String str) {
+  /**
+   * Characters of the text, either the string itself or a sliding window over a reader.
+   * The window keeps the unquoted token being read, the cursor is absolute.
+   */
+  private final static class CharReader {
+    @Nullable private final String str;
+    @Nullable private final Reader in;
+    private char[] buf; // only for a reader
+    private int base; // absolute offset of buf[0]
+    private int pos;
+    private int limit;
+    private int mark = -1;
+    private boolean eof;
+    private int line = 1, lineStart; // of the chars dropped from the window
+
+    CharReader(@NotNull String str) {
       this.str = str;
-      this.strLen = str.length();
+      this.in = null;
+      this.limit = str.length();
+      this.eof = true;
+    }
+
+    CharReader(@NotNull Reader in, int capacity) {
+      this.str = null;
+      this.in = in;
+      this.buf = new char[capacity];
     }
 
     final static char SYNTAX_ESCAPE = '\\';
@@ -275,46 +402,115 @@ public final class MojangsonParser {
         c == '_' || c == '-' || c == '.' || c =='+';
     }
 
+    private boolean fill(int len) {
+      if (eof) return false;
+      int keep = mark >= 0 ? Math.min(mark, pos) : pos;
+      if (keep > 0) {
+        countLines(keep);
+        System.arraycopy(buf, keep, buf, 0, limit - keep);
+        base += keep;
+        limit -= keep;
+        pos -= keep;
+        if (mark >= 0) mark -= keep;
+      }
+      if (pos + len > buf.length)
+        buf = Arrays.copyOf(buf, Math.max(buf.length << 1, pos + len));
+      try {
+        while (pos + len > limit) {
+          int n = in.read(buf, limit, buf.length - limit);
+          if (n < 0) {
+            eof = true;
+            return false;
+          }
+          limit += n;
+        }
+      } catch (IOException e) {
+        throw new UncheckedIOException(e);
+      }
+      return true;
+    }
+
+    private void countLines(int end) {
+      for (int i = 0; i < end; i++) {
+        if (buf[i] == '\n') {
+          line++;
+          lineStart = base + i + 1;
+        }
+      }
+    }
+
+    private char charAt(int index) {
+      return str != null ? str.charAt(index) : buf[index];
+    }
+
+    int getCursor() {
+      return base + pos;
+    }
+
+    void setCursor(int cursor) {
+      if (cursor >= base) pos = cursor - base; // only used for error positions
+    }
+
+    @NotNull
+    IllegalArgumentException error(@NotNull String message) {
+      int line = this.line, lineStart = this.lineStart;
+      int end = Math.min(pos, limit);
+      for (int i = 0; i < end; i++) {
+        if (charAt(i) == '\n') {
+          line++;
+          lineStart = base + i + 1;
+        }
+      }
+      int column = getCursor() - lineStart + 1;
+      return new IllegalArgumentException(message + " (at line " + line + ", column " + column + ")");
+    }
+
     boolean canRead(int len) {
-      return cursor + len <= strLen;
+      return pos + len <= limit || fill(len);
     }
 
     boolean canRead() {
-      return canRead(1);
+      return pos < limit || fill(1);
     }
 
     char peek() {
-      return str.charAt(cursor);
+      if (!canRead()) throw error("Unexpected end of input.");
+      return charAt(pos);
     }
 
     char peek(int offset) {
-      return str.charAt(cursor + offset);
+      if (!canRead(offset + 1)) throw error("Unexpected end of input.");
+      return charAt(pos + offset);
     }
 
     char read() {
-      return str.charAt(cursor++);
+      char c = peek();
+      pos++;
+      return c;
     }
 
     void skip() {
-      cursor++;
+      pos++;
     }
 
     void skipWhitespace() {
-      while (canRead() && Character.isWhitespace(peek())) skip();
+      while (canRead() && Character.isWhitespace(charAt(pos))) pos++;
     }
 
     @NotNull
     String readUnquotedString() {
-      int start = cursor;
-      while (canRead() && isAllowedInUnquotedString(peek())) skip();
-      return str.substring(start, cursor);
+      mark = pos;
+      while (canRead() && isAllowedInUnquotedString(charAt(pos))) pos++;
+      String result = str != null ? str.substring(mark, pos) : new String(buf, mark, pos - mark);
+      mark = -1;
+      return result;
     }
 
     @NotNull
     String readQuotedString() throws IllegalArgumentException {
       if (!canRead()) return "";
       char next = peek();
-      if (!isQuotedStringStart(next)) throw new IllegalArgumentException("Expected quote to start a string.");
+      if (!isQuotedStringStart(next)) throw error("Expected quote to start a string.");
       skip();
       return readStringUntil(next);
     }
@@ -330,8 +526,8 @@ public final class MojangsonParser {
             result.append(c);
             escaped = false;
           } else {
-            cursor -= 1;
-            throw new IllegalArgumentException("Invalid escape sequence '" + c + "' in quoted string.");
+            pos -= 1;
+            throw error("Invalid escape sequence '" + c + "' in quoted string.");
           }
         } else if (c == SYNTAX_ESCAPE) {
           escaped = true;
@@ -341,7 +537,7 @@ public final class MojangsonParser {
           result.append(c);
         }
       }
-      throw new IllegalArgumentException("Unclosed quoted string.");
+      throw error("Unclosed quoted string.");
     }
 
     @NotNull
@@ -359,7 +555,7 @@ public final class MojangsonParser {
       if (canRead() && peek() == c) {
         skip();
       } else {
-        throw new IllegalArgumentException("Expected: " + c);
+        throw error("Expected: " + c);
       }
     }
   }
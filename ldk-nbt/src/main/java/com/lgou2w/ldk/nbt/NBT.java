@@ -38,12 +38,21 @@ public interface NBT<T> extends Cloneable {
 
   void write(@NotNull DataOutput output) throws IOException;
 
+  /**
+   * Returns the exact number of bytes written by {@link #write(DataOutput)}, without writing.
+   */
+  int sizeInBytes();
+
   @NotNull
   String toMojangson();
 
   @NotNull
   String toMojangson(boolean includeColor);
 
+  void toMojangson(@NotNull Appendable output) throws IOException;
+
+  void toMojangson(@NotNull Appendable output, boolean includeColor) throws IOException;
+
   @NotNull
   NBT<T> clone();
 }
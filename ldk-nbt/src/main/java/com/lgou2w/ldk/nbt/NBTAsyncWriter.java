@@ -0,0 +1,267 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Writes NBT files on a background thread. Writes are queued per path and a write that is still
+ * queued is replaced by a newer write of the same path, so only the latest snapshot reaches the disk.
+ * Each batch of queued files is written to temporary files, synced, moved over the target files and
+ * the directories are synced once per batch.
+ *
+ * <pre>{@code
+ * NBTAsyncWriter writer = new NBTAsyncWriter(NBTCompression.GZIP);
+ * writer.write(path, NBTMetadata.of(playerData)); // returns immediately
+ * // ...
+ * writer.close(); // writes everything still queued
+ * }</pre>
+ */
+public final class NBTAsyncWriter implements Closeable {
+  @NotNull private final NBTCompression compression;
+  private final long delayNanos;
+  private final boolean durable;
+  @NotNull private final Thread worker;
+
+  private final Object lock = new Object();
+  private Map<Path, Pending> pending = new LinkedHashMap<>();
+  private Map<Path, Pending> writing = Collections.emptyMap();
+  private boolean closed;
+
+  /**
+   * @param compression Compression of the written files.
+   * @param delay       How long to wait for more writes after the first queued write of a batch, the
+   *                    longer the delay the more writes of the same file are coalesced.
+   * @param unit        Unit of the delay.
+   * @param durable     If files and directories are synced before a write completes.
+   */
+  @Contract("null, _, _, _ -> fail; _, _, null, _ -> fail")
+  public NBTAsyncWriter(NBTCompression compression, long delay, TimeUnit unit, boolean durable) {
+    this.compression = Objects.requireNonNull(compression, "compression");
+    this.delayNanos = Objects.requireNonNull(unit, "unit").toNanos(Math.max(delay, 0L));
+    this.durable = durable;
+    this.worker = new Thread(this::run, "ldk-nbt-async-writer");
+    this.worker.setDaemon(true);
+    this.worker.start();
+  }
+
+  @Contract("null -> fail")
+  public NBTAsyncWriter(NBTCompression compression) {
+    this(compression, 0L, TimeUnit.MILLISECONDS, true);
+  }
+
+  /**
+   * Queue the write of the NBT metadata to the given path. A compound value is snapshotted with
+   * {@link CompoundTag#toImmutable()} and other values are cloned, the caller can keep modifying it.
+   * The returned future completes once the file is written, coalesced writes of a path share the same future.
+   *
+   * @throws IllegalStateException If the writer is closed.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public CompletableFuture<Void> write(Path path, NBTMetadata metadata) throws IllegalStateException {
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(metadata, "metadata");
+    NBTMetadata snapshot = snapshot(metadata);
+    Path key = path.toAbsolutePath().normalize();
+    synchronized (lock) {
+      if (closed) throw new IllegalStateException("The writer is closed.");
+      Pending queued = pending.get(key);
+      if (queued != null) {
+        queued.metadata = snapshot;
+        return queued.future;
+      }
+      Pending newPending = new Pending(snapshot);
+      pending.put(key, newPending);
+      lock.notifyAll();
+      return newPending.future;
+    }
+  }
+
+  @NotNull
+  private static NBTMetadata snapshot(@NotNull NBTMetadata metadata) {
+    if (metadata.isEndType()) return metadata;
+    BaseTag<?> value = metadata.getValue();
+    BaseTag<?> copy = value instanceof CompoundTag ? ((CompoundTag) value).toImmutable() : value.clone();
+    return NBTMetadata.of(metadata.getName(), copy);
+  }
+
+  /**
+   * Returns a future that completes once all writes queued before this call are done, whether they
+   * succeeded or not.
+   */
+  @NotNull
+  public CompletableFuture<Void> flush() {
+    List<CompletableFuture<Void>> futures = new ArrayList<>();
+    synchronized (lock) {
+      for (Pending queued : writing.values()) futures.add(queued.future);
+      for (Pending queued : pending.values()) futures.add(queued.future);
+    }
+    CompletableFuture<?>[] array = new CompletableFuture<?>[futures.size()];
+    for (int i = 0; i < array.length; i++) array[i] = futures.get(i).handle((result, e) -> null);
+    return CompletableFuture.allOf(array);
+  }
+
+  public boolean isClosed() {
+    synchronized (lock) {
+      return closed;
+    }
+  }
+
+  /**
+   * Stop accepting writes and wait until the queued writes are done.
+   */
+  @Override
+  public void close() throws IOException {
+    synchronized (lock) {
+      if (closed) return;
+      closed = true;
+      lock.notifyAll();
+    }
+    try {
+      worker.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new IOException("Interrupted while waiting for queued writes.", e);
+    }
+  }
+
+  /// Worker
+
+  private void run() {
+    try {
+      while (true) {
+        Map<Path, Pending> batch;
+        synchronized (lock) {
+          try {
+            while (pending.isEmpty() && !closed) lock.wait();
+            if (pending.isEmpty()) return; // closed
+            long deadline = System.nanoTime() + delayNanos;
+            long remaining;
+            while (!closed && (remaining = deadline - System.nanoTime()) > 0)
+              TimeUnit.NANOSECONDS.timedWait(lock, remaining);
+          } catch (InterruptedException e) {
+            closed = true; // the queued writes are still written below
+          }
+          batch = pending;
+          writing = batch;
+          pending = new LinkedHashMap<>();
+        }
+        try {
+          writeBatch(batch);
+        } catch (Throwable e) {
+          // Only this batch fails, the worker keeps running for the next writes
+          for (Pending queued : batch.values()) queued.future.completeExceptionally(e);
+        } finally {
+          synchronized (lock) {
+            writing = Collections.emptyMap();
+          }
+        }
+      }
+    } finally {
+      // Nothing writes the queue once the worker is gone, even if it died unexpectedly
+      List<Pending> abandoned;
+      synchronized (lock) {
+        closed = true;
+        abandoned = new ArrayList<>(pending.values());
+        pending = new LinkedHashMap<>();
+      }
+      for (Pending queued : abandoned)
+        queued.future.completeExceptionally(new IllegalStateException("The writer is closed."));
+    }
+  }
+
+  private void writeBatch(@NotNull Map<Path, Pending> batch) {
+    Map<Path, Path> temps = new LinkedHashMap<>();
+    for (Map.Entry<Path, Pending> entry : batch.entrySet()) {
+      try {
+        temps.put(entry.getKey(), NBTStreams.writeTemp(entry.getValue().metadata, entry.getKey(), compression, false));
+      } catch (Throwable e) {
+        entry.getValue().future.completeExceptionally(e);
+      }
+    }
+    if (durable) {
+      // Sync after all files are written, so the file system can flush them together
+      temps.entrySet().removeIf(entry -> {
+        try (FileChannel channel = FileChannel.open(entry.getValue(), StandardOpenOption.WRITE)) {
+          channel.force(true);
+          return false;
+        } catch (Throwable e) {
+          deleteQuietly(entry.getValue());
+          batch.get(entry.getKey()).future.completeExceptionally(e);
+          return true;
+        }
+      });
+    }
+    Set<Path> directories = new LinkedHashSet<>();
+    List<Pending> written = new ArrayList<>(temps.size());
+    for (Map.Entry<Path, Path> entry : temps.entrySet()) {
+      Pending queued = batch.get(entry.getKey());
+      try {
+        NBTStreams.moveTemp(entry.getValue(), entry.getKey());
+        directories.add(entry.getKey().getParent());
+        written.add(queued);
+      } catch (Throwable e) {
+        queued.future.completeExceptionally(e);
+      }
+    }
+    if (durable) {
+      for (Path directory : directories) {
+        try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+          channel.force(true);
+        } catch (IOException ignored) {
+          // Directories can not be opened on some platforms
+        }
+      }
+    }
+    for (Pending queued : written) queued.future.complete(null);
+  }
+
+  private static void deleteQuietly(@NotNull Path path) {
+    try {
+      Files.deleteIfExists(path);
+    } catch (IOException ignored) {
+    }
+  }
+
+  private final static class Pending {
+    final CompletableFuture<Void> future = new CompletableFuture<>();
+    NBTMetadata metadata; // guarded by the lock until the batch is taken
+
+    Pending(@NotNull NBTMetadata metadata) {
+      this.metadata = metadata;
+    }
+  }
+}
@@ -0,0 +1,63 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.Map;
+
+/**
+ * The result of a batch of file operations, each file either succeeded with a value or failed
+ * with the exception or error it threw. Both maps keep the order of the batch.
+ *
+ * @param <T> Value type
+ * @see NBTStreams#writeAll(Map, NBTCompression, java.util.concurrent.Executor)
+ * @see NBTStreams#readAll(java.util.Collection, NBTCompression, java.util.concurrent.Executor)
+ */
+public final class NBTBatchResult<T> {
+  @NotNull private final Map<Path, T> values;
+  @NotNull private final Map<Path, Throwable> failures;
+
+  NBTBatchResult(@NotNull Map<Path, T> values, @NotNull Map<Path, Throwable> failures) {
+    this.values = Collections.unmodifiableMap(values);
+    this.failures = Collections.unmodifiableMap(failures);
+  }
+
+  @NotNull
+  public Map<Path, T> getValues() {
+    return values;
+  }
+
+  @NotNull
+  public Map<Path, Throwable> getFailures() {
+    return failures;
+  }
+
+  public boolean isSuccess() {
+    return failures.isEmpty();
+  }
+
+  @Override
+  public String toString() {
+    return "NBTBatchResult{" +
+      "values=" + values.size() +
+      ", failures=" + failures +
+      '}';
+  }
+}
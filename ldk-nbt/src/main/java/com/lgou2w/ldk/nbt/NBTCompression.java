@@ -0,0 +1,360 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.ByteArrayInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.SequenceInputStream;
+import java.util.Objects;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+import java.util.zip.Inflater;
+import java.util.zip.InflaterInputStream;
+import java.util.zip.ZipException;
+
+/**
+ * A compression codec for NBT data. The deflate based codecs borrow their {@link Deflater} and
+ * {@link Inflater} from a shared pool and return it when the stream is closed, so a stream that
+ * is not closed simply leaves the pool.
+ *
+ * @see NBTStreams#readFile(java.io.File, NBTCompression)
+ * @see NBTStreams#writeFile(NBTMetadata, java.io.File, NBTCompression)
+ */
+public final class NBTCompression {
+
+  public enum Type {
+    NONE,
+    GZIP,
+    ZLIB,
+    ;
+  }
+
+  public final static NBTCompression NONE = new NBTCompression(Type.NONE, 0);
+  public final static NBTCompression GZIP = new NBTCompression(Type.GZIP, Deflater.DEFAULT_COMPRESSION);
+  public final static NBTCompression ZLIB = new NBTCompression(Type.ZLIB, Deflater.DEFAULT_COMPRESSION);
+
+  /**
+   * Zlib at {@link Deflater#BEST_SPEED}. Much cheaper to write than the default level for a slightly
+   * larger output, and still readable as plain zlib.
+   */
+  public final static NBTCompression FAST = new NBTCompression(Type.ZLIB, Deflater.BEST_SPEED);
+
+  private final static int BUFFER_SIZE = 8192;
+  private final static int MAX_POOL_SIZE = 32;
+
+  // Indexed by level + 1, then nowrap (gzip)
+  private final static BlockingQueue<Deflater>[] DEFLATERS = newPools(Deflater.BEST_COMPRESSION + 2);
+  private final static BlockingQueue<Inflater>[] INFLATERS = newPools(1);
+
+  @NotNull private final Type type;
+  private final int level;
+
+  private NBTCompression(@NotNull Type type, int level) {
+    this.type = type;
+    this.level = level;
+  }
+
+  /**
+   * @param level The deflate level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+   *              or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  @NotNull
+  public static NBTCompression gzip(int level) throws IllegalArgumentException {
+    return new NBTCompression(Type.GZIP, checkLevel(level));
+  }
+
+  /**
+   * @param level The deflate level, from {@link Deflater#BEST_SPEED} to {@link Deflater#BEST_COMPRESSION}
+   *              or {@link Deflater#DEFAULT_COMPRESSION}.
+   */
+  @NotNull
+  public static NBTCompression zlib(int level) throws IllegalArgumentException {
+    return new NBTCompression(Type.ZLIB, checkLevel(level));
+  }
+
+  private static int checkLevel(int level) {
+    if (level < Deflater.DEFAULT_COMPRESSION || level > Deflater.BEST_COMPRESSION)
+      throw new IllegalArgumentException("Invalid compression level: " + level);
+    return level;
+  }
+
+  @NotNull
+  public Type getType() {
+    return type;
+  }
+
+  public int getLevel() {
+    return level;
+  }
+
+  /**
+   * Returns a stream that decompresses the given input, closing it closes the input.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public InputStream decompress(InputStream input) throws IOException {
+    Objects.requireNonNull(input, "input");
+    switch (type) {
+      case GZIP: return new GzipInputStream(input, acquireInflater(true));
+      case ZLIB: return new PooledInflaterInputStream(input, acquireInflater(false));
+      default: return input;
+    }
+  }
+
+  /**
+   * Returns a stream that compresses into the given output, closing it finishes the compressed data
+   * and closes the output.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public OutputStream compress(OutputStream output) throws IOException {
+    Objects.requireNonNull(output, "output");
+    switch (type) {
+      case GZIP: return new GzipOutputStream(output, acquireDeflater(level, true));
+      case ZLIB: return new PooledDeflaterOutputStream(output, acquireDeflater(level, false));
+      default: return output;
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    NBTCompression that = (NBTCompression) o;
+    return type == that.type && (type == Type.NONE || level == that.level);
+  }
+
+  @Override
+  public int hashCode() {
+    return Objects.hash(type, type == Type.NONE ? 0 : level);
+  }
+
+  @Override
+  public String toString() {
+    return "NBTCompression{" +
+      "type=" + type +
+      ", level=" + level +
+      '}';
+  }
+
+  /// Pool
+
+  @SuppressWarnings({ "unchecked", "rawtypes" })
+  @NotNull
+  private static <T> BlockingQueue<T>[] newPools(int levels) {
+    BlockingQueue<T>[] pools = new BlockingQueue[levels * 2];
+    for (int i = 0; i < pools.length; i++) pools[i] = new ArrayBlockingQueue<>(MAX_POOL_SIZE);
+    return pools;
+  }
+
+  @NotNull
+  private static Deflater acquireDeflater(int level, boolean nowrap) {
+    Deflater deflater = DEFLATERS[(level + 1) * 2 + (nowrap ? 1 : 0)].poll();
+    return deflater != null ? deflater : new Deflater(level, nowrap);
+  }
+
+  private static void releaseDeflater(@NotNull Deflater deflater, int level, boolean nowrap) {
+    deflater.reset();
+    if (!DEFLATERS[(level + 1) * 2 + (nowrap ? 1 : 0)].offer(deflater)) deflater.end();
+  }
+
+  @NotNull
+  private static Inflater acquireInflater(boolean nowrap) {
+    Inflater inflater = INFLATERS[nowrap ? 1 : 0].poll();
+    return inflater != null ? inflater : new Inflater(nowrap);
+  }
+
+  private static void releaseInflater(@NotNull Inflater inflater, boolean nowrap) {
+    inflater.reset();
+    if (!INFLATERS[nowrap ? 1 : 0].offer(inflater)) inflater.end();
+  }
+
+  /// Streams
+
+  private class PooledDeflaterOutputStream extends DeflaterOutputStream {
+    private final boolean nowrap;
+    private boolean closed;
+
+    PooledDeflaterOutputStream(@NotNull OutputStream output, @NotNull Deflater deflater, boolean nowrap) {
+      super(output, deflater, BUFFER_SIZE);
+      this.nowrap = nowrap;
+    }
+
+    PooledDeflaterOutputStream(@NotNull OutputStream output, @NotNull Deflater deflater) {
+      this(output, deflater, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) return;
+      closed = true;
+      try {
+        super.close();
+      } finally {
+        releaseDeflater(def, level, nowrap);
+      }
+    }
+
+    // Releases the deflater without finishing, the output stays open and is owned by the caller
+    void abandon() {
+      if (closed) return;
+      closed = true;
+      releaseDeflater(def, level, nowrap);
+    }
+  }
+
+  private static class PooledInflaterInputStream extends InflaterInputStream {
+    private final boolean nowrap;
+    private boolean closed;
+
+    PooledInflaterInputStream(@NotNull InputStream input, @NotNull Inflater inflater, boolean nowrap) {
+      super(input, inflater, BUFFER_SIZE);
+      this.nowrap = nowrap;
+    }
+
+    PooledInflaterInputStream(@NotNull InputStream input, @NotNull Inflater inflater) {
+      this(input, inflater, false);
+    }
+
+    @Override
+    public void close() throws IOException {
+      if (closed) return;
+      closed = true;
+      try {
+        super.close();
+      } finally {
+        releaseInflater(inf, nowrap);
+      }
+    }
+  }
+
+  // Same format as GZIPOutputStream, which can not use a pooled deflater
+  private final class GzipOutputStream extends PooledDeflaterOutputStream {
+    private final CRC32 crc = new CRC32();
+    private boolean trailer;
+
+    GzipOutputStream(@NotNull OutputStream output, @NotNull Deflater deflater) throws IOException {
+      super(output, deflater, true);
+      try {
+        out.write(new byte[] { (byte) 0x1F, (byte) 0x8B, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0 });
+      } catch (IOException e) {
+        abandon();
+        throw e;
+      }
+    }
+
+    @Override
+    public void write(byte @NotNull [] b, int off, int len) throws IOException {
+      super.write(b, off, len);
+      crc.update(b, off, len);
+    }
+
+    @Override
+    public void finish() throws IOException {
+      if (trailer) return;
+      super.finish();
+      writeIntLE((int) crc.getValue());
+      writeIntLE((int) def.getBytesRead());
+      trailer = true;
+    }
+
+    private void writeIntLE(int value) throws IOException {
+      out.write(value);
+      out.write(value >>> 8);
+      out.write(value >>> 16);
+      out.write(value >>> 24);
+    }
+  }
+
+  // Same format as GZIPInputStream, which can not use a pooled inflater. Only the first member is read.
+  private final static class GzipInputStream extends PooledInflaterInputStream {
+    private final static int FLAG_HCRC = 2;
+    private final static int FLAG_EXTRA = 4;
+    private final static int FLAG_NAME = 8;
+    private final static int FLAG_COMMENT = 16;
+
+    private final CRC32 crc = new CRC32();
+    private boolean eos;
+
+    GzipInputStream(@NotNull InputStream input, @NotNull Inflater inflater) throws IOException {
+      super(input, inflater, true);
+      try {
+        readHeader();
+      } catch (IOException e) {
+        close();
+        throw e;
+      }
+    }
+
+    private void readHeader() throws IOException {
+      if (readUShortLE(in) != 0x8B1F) throw new ZipException("Not in GZIP format");
+      if (readUByte(in) != Deflater.DEFLATED) throw new ZipException("Unsupported compression method");
+      int flags = readUByte(in);
+      skip(in, 6); // mtime, extra flags, os
+      if ((flags & FLAG_EXTRA) != 0) skip(in, readUShortLE(in));
+      if ((flags & FLAG_NAME) != 0) while (readUByte(in) != 0) ;
+      if ((flags & FLAG_COMMENT) != 0) while (readUByte(in) != 0) ;
+      if ((flags & FLAG_HCRC) != 0) skip(in, 2);
+    }
+
+    @Override
+    public int read(byte @NotNull [] b, int off, int len) throws IOException {
+      if (eos) return -1;
+      int n = super.read(b, off, len);
+      if (n == -1) {
+        readTrailer();
+        eos = true;
+      } else {
+        crc.update(b, off, n);
+      }
+      return n;
+    }
+
+    private void readTrailer() throws IOException {
+      InputStream input = in;
+      int remaining = inf.getRemaining();
+      if (remaining > 0) input = new SequenceInputStream(new ByteArrayInputStream(buf, len - remaining, remaining), in);
+      long crc = readUShortLE(input) | ((long) readUShortLE(input) << 16);
+      long size = readUShortLE(input) | ((long) readUShortLE(input) << 16);
+      if (crc != this.crc.getValue() || size != (inf.getBytesWritten() & 0xFFFFFFFFL))
+        throw new ZipException("Corrupt GZIP trailer");
+    }
+
+    private static void skip(@NotNull InputStream input, int length) throws IOException {
+      for (int i = 0; i < length; i++) readUByte(input);
+    }
+
+    private static int readUShortLE(@NotNull InputStream input) throws IOException {
+      return readUByte(input) | (readUByte(input) << 8);
+    }
+
+    private static int readUByte(@NotNull InputStream input) throws IOException {
+      int b = input.read();
+      if (b == -1) throw new EOFException("Unexpected end of GZIP stream");
+      return b;
+    }
+  }
+}
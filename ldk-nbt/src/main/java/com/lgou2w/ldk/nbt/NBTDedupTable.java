@@ -0,0 +1,132 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.lang.ref.Reference;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A weak table of canonical immutable subtrees, so that structurally equal compounds and lists are
+ * shared instead of copied. Tags are looked up by their {@link NBTFingerprint} and confirmed with
+ * {@code equals}, an entry is dropped once its tag is no longer reachable. Canonical lists are only shared
+ * inside immutable compounds, which hand them out as copies. As compound equality ignores
+ * the entry order, an equal compound with a different order is replaced by the first one seen.
+ * Thread-safe, a table can be shared between decodes.
+ *
+ * @see NBTStreams#read(java.io.DataInput, NBTLimits, NBTDedupTable)
+ */
+public final class NBTDedupTable {
+  private final Map<NBTFingerprint, Entry> table = new ConcurrentHashMap<>();
+  private final ReferenceQueue<BaseTag<?>> queue = new ReferenceQueue<>();
+
+  /**
+   * Returns an immutable copy of the given compound where every nested compound and list is canonical.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public ImmutableCompoundTag intern(CompoundTag tag) {
+    Objects.requireNonNull(tag, "tag");
+    return (ImmutableCompoundTag) freeze(tag, false);
+  }
+
+  /**
+   * The number of entries, including entries whose tag was collected but not yet expunged.
+   */
+  public int size() {
+    expunge();
+    return table.size();
+  }
+
+  public void clear() {
+    table.clear();
+    expunge();
+  }
+
+  // Immutable compounds only hold values that are never modified, they can be shared as they are
+  @NotNull
+  private BaseTag<?> freeze(@NotNull BaseTag<?> tag, boolean owned) {
+    if (tag instanceof CompoundTag) {
+      boolean ownedEntries = owned || tag instanceof ImmutableCompoundTag;
+      Map<String, BaseTag<?>> entries = ((CompoundTag) tag).entries();
+      Map<String, BaseTag<?>> value = new CompoundMap(entries.size());
+      for (Map.Entry<String, BaseTag<?>> entry : entries.entrySet())
+        value.put(entry.getKey(), freeze(entry.getValue(), ownedEntries));
+      return canonical(new ImmutableCompoundTag(value));
+    }
+    if (tag instanceof ListTag) {
+      ListTag list = (ListTag) tag;
+      if (list.value instanceof NumericList || list.value.isEmpty())
+        return canonical(owned ? list : list.clone());
+      List<BaseTag<?>> elements = new ArrayList<>(list.value.size());
+      for (BaseTag<?> element : list.value) elements.add(freeze(element, owned));
+      ListTag frozen = new ListTag();
+      frozen.setElements(list.getElementType(), elements);
+      return canonical(frozen);
+    }
+    return owned ? tag : tag.clone();
+  }
+
+  /**
+   * Returns the canonical tag equal to the given one, registering it if there is none. The tag
+   * must not be modified afterwards.
+   */
+  @NotNull
+  @SuppressWarnings("unchecked")
+  <T extends BaseTag<?>> T canonical(@NotNull T tag) {
+    expunge();
+    NBTFingerprint key = tag.fingerprint();
+    while (true) {
+      Entry entry = table.get(key);
+      BaseTag<?> existing = entry != null ? entry.get() : null;
+      if (existing != null) {
+        // A fingerprint collision keeps the first tag, the other one is just not shared
+        return existing.getClass() == tag.getClass() && existing.equals(tag) ? (T) existing : tag;
+      }
+      Entry newEntry = new Entry(key, tag, queue);
+      if (entry == null ? table.putIfAbsent(key, newEntry) == null : table.replace(key, entry, newEntry)) {
+        if (tag instanceof ListTag) ((ListTag) tag).canonical = key;
+        return tag;
+      }
+    }
+  }
+
+  private void expunge() {
+    Reference<? extends BaseTag<?>> reference;
+    while ((reference = queue.poll()) != null) {
+      Entry entry = (Entry) reference;
+      table.remove(entry.key, entry);
+    }
+  }
+
+  private final static class Entry extends WeakReference<BaseTag<?>> {
+    final NBTFingerprint key;
+
+    Entry(@NotNull NBTFingerprint key, @NotNull BaseTag<?> tag, @NotNull ReferenceQueue<BaseTag<?>> queue) {
+      super(tag, queue);
+      this.key = key;
+    }
+  }
+}
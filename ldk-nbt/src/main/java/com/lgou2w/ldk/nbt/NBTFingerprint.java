@@ -0,0 +1,208 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+
+/**
+ * A 128-bit content fingerprint of a tag, see {@link BaseTag#fingerprint()}. Equal tags always have
+ * equal fingerprints, the order of compound entries is ignored. The fingerprint is stable across runs
+ * and can be used as a hash map key in place of the tag itself.
+ */
+public final class NBTFingerprint {
+  private final static long SEED_HIGH = 0x9E3779B97F4A7C15L;
+  private final static long SEED_LOW = 0xC2B2AE3D27D4EB4FL;
+
+  private final long high;
+  private final long low;
+
+  public NBTFingerprint(long high, long low) {
+    this.high = high;
+    this.low = low;
+  }
+
+  public long getHigh() {
+    return high;
+  }
+
+  public long getLow() {
+    return low;
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTFingerprint of(BaseTag<?> tag) {
+    Objects.requireNonNull(tag, "tag");
+    return tag.fingerprint();
+  }
+
+  @NotNull
+  static NBTFingerprint compute(@NotNull BaseTag<?> tag) {
+    TagType type = tag.getType();
+    Hasher hasher = new Hasher(type.getId());
+    switch (type) {
+      case END:
+        break;
+      case BYTE:
+      case SHORT:
+      case INT:
+      case LONG:
+      case FLOAT:
+      case DOUBLE:
+        hasher.add(bits((NumericTag<?>) tag));
+        break;
+      case STRING:
+        hasher.add(hashChars((String) tag.value, SEED_HIGH));
+        hasher.add(hashChars((String) tag.value, SEED_LOW));
+        break;
+      case BYTE_ARRAY: {
+        byte[] value = (byte[]) tag.value;
+        hasher.add(value.length);
+        for (int i = 0; i < value.length; i += 8) {
+          long word = 0;
+          for (int j = i, end = Math.min(i + 8, value.length); j < end; j++)
+            word = (word << 8) | (value[j] & 0xFF);
+          hasher.add(word);
+        }
+        break;
+      }
+      case INT_ARRAY: {
+        int[] value = (int[]) tag.value;
+        hasher.add(value.length);
+        for (int i = 0; i < value.length; i += 2) {
+          long word = value[i] & 0xFFFFFFFFL;
+          if (i + 1 < value.length) word |= (long) value[i + 1] << 32;
+          hasher.add(word);
+        }
+        break;
+      }
+      case LONG_ARRAY: {
+        long[] value = (long[]) tag.value;
+        hasher.add(value.length);
+        for (long element : value) hasher.add(element);
+        break;
+      }
+      case LIST: {
+        ListTag list = (ListTag) tag;
+        List<BaseTag<?>> value = list.value; // not inflated
+        hasher.add(list.getElementType().getId());
+        hasher.add(value.size());
+        if (value instanceof NumericList) {
+          NumericList numeric = (NumericList) value;
+          for (int i = 0; i < numeric.size(); i++) hasher.add(numeric.bits(i));
+        } else {
+          for (BaseTag<?> element : value) {
+            if (element instanceof NumericTag) {
+              hasher.add(bits((NumericTag<?>) element));
+            } else {
+              NBTFingerprint fingerprint = element.fingerprint();
+              hasher.add(fingerprint.high);
+              hasher.add(fingerprint.low);
+            }
+          }
+        }
+        break;
+      }
+      case COMPOUND: {
+        // Order-insensitive sum of the entries
+        Map<String, BaseTag<?>> entries = ((CompoundTag) tag).entries();
+        long sumHigh = 0, sumLow = 0;
+        for (Map.Entry<String, BaseTag<?>> entry : entries.entrySet()) {
+          NBTFingerprint fingerprint = entry.getValue().fingerprint();
+          sumHigh += mix(hashChars(entry.getKey(), SEED_HIGH) ^ fingerprint.high);
+          sumLow += mix(hashChars(entry.getKey(), SEED_LOW) ^ fingerprint.low);
+        }
+        hasher.add(entries.size());
+        hasher.add(sumHigh);
+        hasher.add(sumLow);
+        break;
+      }
+    }
+    return hasher.finish();
+  }
+
+  // Same as NumericList#bits
+  private static long bits(@NotNull NumericTag<?> tag) {
+    switch (tag.getType()) {
+      case FLOAT: return Float.floatToIntBits(tag.value.floatValue());
+      case DOUBLE: return Double.doubleToLongBits(tag.value.doubleValue());
+      default: return tag.value.longValue();
+    }
+  }
+
+  private static long hashChars(@NotNull String value, long seed) {
+    long hash = seed ^ value.length();
+    for (int i = 0; i < value.length(); i++)
+      hash = (hash ^ value.charAt(i)) * 0x100000001B3L;
+    return mix(hash);
+  }
+
+  // MurmurHash3 fmix64
+  private static long mix(long value) {
+    value ^= value >>> 33;
+    value *= 0xFF51AFD7ED558CCDL;
+    value ^= value >>> 33;
+    value *= 0xC4CEB9FE1A85EC53L;
+    value ^= value >>> 33;
+    return value;
+  }
+
+  private final static class Hasher {
+    long high, low;
+    int count;
+
+    Hasher(int type) {
+      high = SEED_HIGH ^ type;
+      low = SEED_LOW ^ type;
+    }
+
+    void add(long word) {
+      high = Long.rotateLeft(high ^ mix(word ^ SEED_HIGH), 27) * 0x87C37B91114253D5L;
+      low = Long.rotateLeft(low ^ mix(word ^ SEED_LOW), 31) * 0x4CF5AD432745937FL + high;
+      count++;
+    }
+
+    @NotNull
+    NBTFingerprint finish() {
+      long h = mix(high ^ count), l = mix(low ^ count);
+      return new NBTFingerprint(h + l, l + h + h);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    NBTFingerprint that = (NBTFingerprint) o;
+    return high == that.high && low == that.low;
+  }
+
+  @Override
+  public int hashCode() {
+    return (int) (low ^ (low >>> 32));
+  }
+
+  @Override
+  public String toString() {
+    return String.format("%016x%016x", high, low);
+  }
+}
@@ -0,0 +1,100 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.UTFDataFormatException;
+import java.util.Arrays;
+
+/**
+ * A bounded pool of decoded strings, so that repeated compound keys and string values share one instance.
+ * Strings are looked up by their modified UTF-8 bytes before decoding. The pool is a fixed-size table where
+ * a newer string replaces an older one on collision. Thread-safe, a pool can be shared between decodes.
+ *
+ * @see NBTStreams#read(java.io.InputStream, NBTInternPool)
+ * @see NBTReader#NBTReader(java.io.InputStream, NBTInternPool)
+ */
+public final class NBTInternPool {
+  public final static int DEFAULT_CAPACITY = 4096;
+  public final static int DEFAULT_MAX_LENGTH = 128;
+
+  private final Entry[] table;
+  private final int maxLength;
+
+  public NBTInternPool() {
+    this(DEFAULT_CAPACITY, DEFAULT_MAX_LENGTH);
+  }
+
+  /**
+   * @param capacity The number of entries, rounded up to a power of two.
+   * @param maxLength The maximum length in bytes of a pooled string, longer strings are decoded as usual.
+   */
+  public NBTInternPool(int capacity, int maxLength) {
+    if (capacity <= 0 || capacity > 1 << 30) throw new IllegalArgumentException("Invalid capacity: " + capacity);
+    if (maxLength < 0) throw new IllegalArgumentException("Invalid max length: " + maxLength);
+    int size = Integer.highestOneBit(capacity);
+    if (size < capacity) size <<= 1;
+    this.table = new Entry[size];
+    this.maxLength = maxLength;
+  }
+
+  public int getCapacity() {
+    return table.length;
+  }
+
+  public int getMaxLength() {
+    return maxLength;
+  }
+
+  public void clear() {
+    Arrays.fill(table, null);
+  }
+
+  @NotNull
+  String decode(byte @NotNull [] bytes, int offset, int length) throws UTFDataFormatException {
+    if (length > maxLength) return ModifiedUTF8.decode(bytes, offset, length);
+    int hash = 1;
+    for (int i = offset, end = offset + length; i < end; i++) hash = 31 * hash + bytes[i];
+    hash ^= hash >>> 16;
+    int index = hash & (table.length - 1);
+    Entry entry = table[index];
+    if (entry != null && entry.hash == hash && entry.matches(bytes, offset, length)) return entry.value;
+    String value = ModifiedUTF8.decode(bytes, offset, length);
+    table[index] = new Entry(hash, Arrays.copyOfRange(bytes, offset, offset + length), value);
+    return value;
+  }
+
+  private final static class Entry {
+    final int hash;
+    final byte @NotNull [] bytes;
+    @NotNull final String value;
+
+    Entry(int hash, byte @NotNull [] bytes, @NotNull String value) {
+      this.hash = hash;
+      this.bytes = bytes;
+      this.value = value;
+    }
+
+    boolean matches(byte @NotNull [] bytes, int offset, int length) {
+      if (this.bytes.length != length) return false;
+      for (int i = 0; i < length; i++)
+        if (this.bytes[i] != bytes[offset + i]) return false;
+      return true;
+    }
+  }
+}
@@ -0,0 +1,60 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+/**
+ * Budgets for {@link NBTStreams#read(java.io.DataInput, NBTLimits)}. The depth counts nested compounds and
+ * lists, the root compound being depth 1. The bytes count the whole encoded tag, including the root type
+ * and name. Declared lengths are checked against the remaining budget before anything is allocated.
+ */
+public final class NBTLimits {
+  public final static int DEFAULT_MAX_DEPTH = 512;
+  public final static long DEFAULT_MAX_BYTES = 2L * 1024 * 1024;
+
+  public final static NBTLimits DEFAULT = new NBTLimits(DEFAULT_MAX_DEPTH, DEFAULT_MAX_BYTES);
+  public final static NBTLimits UNLIMITED = new NBTLimits(Integer.MAX_VALUE, Long.MAX_VALUE);
+
+  private final int maxDepth;
+  private final long maxBytes;
+
+  /**
+   * @param maxDepth The maximum nesting depth of compounds and lists.
+   * @param maxBytes The maximum number of encoded bytes.
+   */
+  public NBTLimits(int maxDepth, long maxBytes) {
+    if (maxDepth <= 0) throw new IllegalArgumentException("Invalid max depth: " + maxDepth);
+    if (maxBytes <= 0) throw new IllegalArgumentException("Invalid max bytes: " + maxBytes);
+    this.maxDepth = maxDepth;
+    this.maxBytes = maxBytes;
+  }
+
+  public int getMaxDepth() {
+    return maxDepth;
+  }
+
+  public long getMaxBytes() {
+    return maxBytes;
+  }
+
+  @Override
+  public String toString() {
+    return "NBTLimits{" +
+      "maxDepth=" + maxDepth +
+      ", maxBytes=" + maxBytes +
+      '}';
+  }
+}
@@ -0,0 +1,441 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Objects;
+
+/**
+ * A structural delta between two compound tags, made of key sets and removals, nested compound
+ * patches, list splices and array range edits. The patch is itself stored as a compound tag, so
+ * it can be written with {@link NBTStreams} like any other tag.
+ *
+ * <pre>{@code
+ * NBTPatch patch = NBTPatch.diff(before, after);
+ * String delta = NBTStreams.writeBase64(NBTMetadata.of(patch.toCompound()));
+ * // ...
+ * NBTPatch.of(NBTStreams.readBase64(delta).getValue()).apply(before); // before now equals after
+ * }</pre>
+ */
+public final class NBTPatch {
+  private final static String SET = "set";
+  private final static String REMOVE = "remove";
+  private final static String COMPOUND = "compound";
+  private final static String LIST = "list";
+  private final static String ARRAY = "array";
+  private final static String SPLICE = "splice";
+  private final static String PATCH = "patch";
+  private final static String INDEX = "index";
+  private final static String INSERT = "insert";
+  private final static String LENGTH = "length";
+  private final static String RANGES = "ranges";
+  private final static String VALUES = "values";
+
+  // Unchanged array elements between two edits are kept in one range up to this gap
+  private final static int RANGE_GAP = 8;
+
+  @NotNull private final ImmutableCompoundTag patch;
+
+  private NBTPatch(@NotNull ImmutableCompoundTag patch) {
+    this.patch = patch;
+  }
+
+  /**
+   * Returns the patch that turns the {@code from} compound into the {@code to} compound.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTPatch diff(CompoundTag from, CompoundTag to) {
+    Objects.requireNonNull(from, "from");
+    Objects.requireNonNull(to, "to");
+    return new NBTPatch(diffCompound(from, to).toImmutable());
+  }
+
+  /**
+   * Returns the patch stored in the given compound, as returned by {@link #toCompound()}.
+   * The structure of the patch is checked when it is applied.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTPatch of(BaseTag<?> patch) throws IllegalArgumentException {
+    Objects.requireNonNull(patch, "patch");
+    if (!(patch instanceof CompoundTag))
+      throw new IllegalArgumentException("The patch is not a compound: " + patch.getType());
+    return new NBTPatch(((CompoundTag) patch).toImmutable());
+  }
+
+  public boolean isEmpty() {
+    return patch.isEmpty();
+  }
+
+  @NotNull
+  @Contract("-> new")
+  public CompoundTag toCompound() {
+    return patch.toMutable();
+  }
+
+  /**
+   * Applies this patch in place to the given compound and returns it.
+   *
+   * @throws IllegalArgumentException If the patch is invalid or the compound does not have the structure
+   *                                  the patch was made against, the compound may then be partially patched.
+   */
+  @NotNull
+  @Contract("null -> fail; !null -> param1")
+  public CompoundTag apply(CompoundTag target) throws IllegalArgumentException {
+    Objects.requireNonNull(target, "target");
+    try {
+      applyCompound(patch, target);
+    } catch (NoSuchElementException | ClassCastException | IndexOutOfBoundsException e) {
+      throw new IllegalArgumentException("The patch does not apply to the compound.", e);
+    }
+    return target;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return patch.equals(((NBTPatch) o).patch);
+  }
+
+  @Override
+  public int hashCode() {
+    return patch.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "NBTPatch{" +
+      "patch=" + patch.toMojangson() +
+      '}';
+  }
+
+  /// Diff
+
+  @NotNull
+  private static CompoundTag diffCompound(@NotNull CompoundTag from, @NotNull CompoundTag to) {
+    CompoundTag sets = new CompoundTag(), compounds = new CompoundTag(), lists = new CompoundTag(), arrays = new CompoundTag();
+    ListTag removes = new ListTag();
+    Map<String, BaseTag<?>> previousEntries = from.entries();
+    Map<String, BaseTag<?>> entries = to.entries();
+    for (Map.Entry<String, BaseTag<?>> entry : entries.entrySet()) {
+      String key = entry.getKey();
+      BaseTag<?> value = entry.getValue();
+      BaseTag<?> previous = previousEntries.get(key);
+      if (previous == null || previous.getType() != value.getType()) {
+        sets.put(key, value.clone());
+        continue;
+      }
+      CompoundTag child;
+      switch (value.getType()) {
+        case COMPOUND:
+          child = diffCompound((CompoundTag) previous, (CompoundTag) value);
+          if (!child.isEmpty()) compounds.put(key, child);
+          break;
+        case LIST:
+          child = diffList((ListTag) previous, (ListTag) value);
+          if (child == null) sets.put(key, value.clone());
+          else if (!child.isEmpty()) lists.put(key, child);
+          break;
+        case BYTE_ARRAY:
+        case INT_ARRAY:
+        case LONG_ARRAY:
+          child = diffArray(previous.value, value.value);
+          if (child == null) sets.put(key, value.clone());
+          else if (!child.isEmpty()) arrays.put(key, child);
+          break;
+        default:
+          if (!previous.equals(value)) sets.put(key, value.clone());
+          break;
+      }
+    }
+    for (String key : previousEntries.keySet()) {
+      if (!entries.containsKey(key)) removes.addString(key);
+    }
+    CompoundTag patch = new CompoundTag();
+    if (!removes.isEmpty()) patch.put(REMOVE, removes);
+    if (!sets.isEmpty()) patch.put(SET, sets);
+    if (!compounds.isEmpty()) patch.put(COMPOUND, compounds);
+    if (!lists.isEmpty()) patch.put(LIST, lists);
+    if (!arrays.isEmpty()) patch.put(ARRAY, arrays);
+    return patch;
+  }
+
+  // Returns null if the whole list should be replaced instead
+  @Nullable
+  private static CompoundTag diffList(@NotNull ListTag from, @NotNull ListTag to) {
+    List<BaseTag<?>> previous = from.value, elements = to.value; // numeric lists are not inflated
+    int n = previous.size(), m = elements.size();
+    if (n != 0 && m != 0 && from.getElementType() != to.getElementType()) return null;
+    int prefix = 0, suffix = 0;
+    while (prefix < n && prefix < m && previous.get(prefix).equals(elements.get(prefix))) prefix++;
+    while (suffix < n - prefix && suffix < m - prefix && previous.get(n - 1 - suffix).equals(elements.get(m - 1 - suffix))) suffix++;
+    ListTag splices = new ListTag(), patches = new ListTag();
+    int inserted = 0;
+    if (n == m) {
+      // Same length, compounds are patched in place and other runs of changed elements are replaced
+      int start = -1;
+      for (int i = prefix; i <= m - suffix; i++) {
+        BaseTag<?> before = i < m - suffix ? previous.get(i) : null, after = i < m - suffix ? elements.get(i) : null;
+        boolean changed = false;
+        if (before instanceof CompoundTag && after instanceof CompoundTag) {
+          CompoundTag child = diffCompound((CompoundTag) before, (CompoundTag) after);
+          if (!child.isEmpty()) patches.add(element(i, child));
+        } else if (before != null) {
+          changed = !before.equals(after);
+        }
+        if (changed && start == -1) {
+          start = i;
+        } else if (!changed && start != -1) {
+          splices.add(splice(start, i - start, elements.subList(start, i)));
+          inserted += i - start;
+          start = -1;
+        }
+      }
+    } else {
+      splices.add(splice(prefix, n - prefix - suffix, elements.subList(prefix, m - suffix)));
+      inserted = m - prefix - suffix;
+    }
+    if (m != 0 && inserted == m) return null;
+    CompoundTag patch = new CompoundTag();
+    if (!splices.isEmpty()) patch.put(SPLICE, splices);
+    if (!patches.isEmpty()) patch.put(PATCH, patches);
+    return patch;
+  }
+
+  @NotNull
+  private static CompoundTag splice(int index, int remove, @NotNull List<BaseTag<?>> elements) {
+    CompoundTag splice = new CompoundTag();
+    splice.setInt(INDEX, index);
+    if (remove != 0) splice.setInt(REMOVE, remove);
+    if (!elements.isEmpty()) {
+      ListTag insert = new ListTag();
+      for (BaseTag<?> element : elements) insert.add(element.clone());
+      splice.put(INSERT, insert);
+    }
+    return splice;
+  }
+
+  @NotNull
+  private static CompoundTag element(int index, @NotNull CompoundTag patch) {
+    CompoundTag element = new CompoundTag();
+    element.setInt(INDEX, index);
+    element.put(PATCH, patch);
+    return element;
+  }
+
+  // Returns null if the whole array should be replaced instead
+  @Nullable
+  private static CompoundTag diffArray(@NotNull Object from, @NotNull Object to) {
+    int n = length(from), m = length(to), common = Math.min(n, m);
+    List<int[]> ranges = new ArrayList<>();
+    int changed = 0;
+    for (int i = 0; i < common; i++) {
+      if (equalAt(from, to, i)) continue;
+      int end = i + 1;
+      while (end < common && !equalAt(from, to, end)) end++;
+      changed += addRange(ranges, i, end);
+      i = end;
+    }
+    if (m > n) changed += addRange(ranges, n, m);
+    if (m != 0 && changed * 2 > m) return null;
+    CompoundTag patch = new CompoundTag();
+    if (n != m) patch.setInt(LENGTH, m);
+    if (!ranges.isEmpty()) {
+      ListTag values = new ListTag();
+      for (int[] range : ranges) {
+        CompoundTag element = new CompoundTag();
+        element.setInt(INDEX, range[0]);
+        element.put(VALUES, slice(to, range[0], range[1]));
+        values.add(element);
+      }
+      patch.put(RANGES, values);
+    }
+    return patch;
+  }
+
+  // Returns the number of elements added to the ranges
+  private static int addRange(@NotNull List<int[]> ranges, int start, int end) {
+    int[] last = ranges.isEmpty() ? null : ranges.get(ranges.size() - 1);
+    if (last != null && start - last[1] < RANGE_GAP) {
+      int added = end - last[1];
+      last[1] = end;
+      return added;
+    }
+    ranges.add(new int[] { start, end });
+    return end - start;
+  }
+
+  private static int length(@NotNull Object array) {
+    if (array instanceof byte[]) return ((byte[]) array).length;
+    if (array instanceof int[]) return ((int[]) array).length;
+    return ((long[]) array).length;
+  }
+
+  private static boolean equalAt(@NotNull Object a, @NotNull Object b, int index) {
+    if (a instanceof byte[]) return ((byte[]) a)[index] == ((byte[]) b)[index];
+    if (a instanceof int[]) return ((int[]) a)[index] == ((int[]) b)[index];
+    return ((long[]) a)[index] == ((long[]) b)[index];
+  }
+
+  @NotNull
+  private static BaseTag<?> slice(@NotNull Object array, int from, int to) {
+    if (array instanceof byte[]) return new ByteArrayTag(Arrays.copyOfRange((byte[]) array, from, to));
+    if (array instanceof int[]) return new IntArrayTag(Arrays.copyOfRange((int[]) array, from, to));
+    return new LongArrayTag(Arrays.copyOfRange((long[]) array, from, to));
+  }
+
+  /// Apply
+
+  private static void applyCompound(@NotNull CompoundTag patch, @NotNull CompoundTag target) {
+    ListTag removes = child(patch, REMOVE, ListTag.class);
+    if (removes != null) {
+      for (BaseTag<?> key : removes.value) target.remove(cast(key, StringTag.class).value);
+    }
+    CompoundTag sets = child(patch, SET, CompoundTag.class);
+    if (sets != null) {
+      for (Map.Entry<String, BaseTag<?>> entry : sets.entries().entrySet())
+        target.put(entry.getKey(), entry.getValue().clone());
+    }
+    CompoundTag compounds = child(patch, COMPOUND, CompoundTag.class);
+    if (compounds != null) {
+      for (Map.Entry<String, BaseTag<?>> entry : compounds.entries().entrySet())
+        applyCompound(cast(entry.getValue(), CompoundTag.class), target(target, entry.getKey(), CompoundTag.class));
+    }
+    CompoundTag lists = child(patch, LIST, CompoundTag.class);
+    if (lists != null) {
+      for (Map.Entry<String, BaseTag<?>> entry : lists.entries().entrySet())
+        applyList(cast(entry.getValue(), CompoundTag.class), target(target, entry.getKey(), ListTag.class));
+    }
+    CompoundTag arrays = child(patch, ARRAY, CompoundTag.class);
+    if (arrays != null) {
+      for (Map.Entry<String, BaseTag<?>> entry : arrays.entries().entrySet())
+        applyArray(cast(entry.getValue(), CompoundTag.class), target(target, entry.getKey(), BaseTag.class));
+    }
+  }
+
+  private static void applyList(@NotNull CompoundTag patch, @NotNull ListTag target) {
+    ListTag splices = child(patch, SPLICE, ListTag.class);
+    if (splices != null) {
+      for (BaseTag<?> element : splices.value) {
+        CompoundTag splice = cast(element, CompoundTag.class);
+        int index = intOf(splice, INDEX);
+        NumericTag<?> remove = child(splice, REMOVE, NumericTag.class);
+        if (remove != null) target.value.subList(index, index + remove.value.intValue()).clear(); // not inflated
+        ListTag insert = child(splice, INSERT, ListTag.class);
+        if (insert != null) {
+          List<BaseTag<?>> elements = new ArrayList<>(insert.size());
+          for (BaseTag<?> value : insert.value) elements.add(value.clone());
+          target.addAll(index, elements);
+        }
+      }
+    }
+    ListTag patches = child(patch, PATCH, ListTag.class);
+    if (patches != null) {
+      for (BaseTag<?> element : patches.value) {
+        CompoundTag compound = cast(element, CompoundTag.class);
+        BaseTag<?> value = target.get(intOf(compound, INDEX));
+        applyCompound(cast(compound.peek(PATCH), CompoundTag.class), cast(value, CompoundTag.class));
+      }
+    }
+  }
+
+  private static void applyArray(@NotNull CompoundTag patch, @NotNull BaseTag<?> target) {
+    Object array = target.value;
+    NumericTag<?> length = child(patch, LENGTH, NumericTag.class);
+    if (array instanceof byte[]) {
+      byte[] value = (byte[]) array;
+      if (length != null) value = Arrays.copyOf(value, newLength(patch, length, value.length));
+      applyRanges(patch, value, ByteArrayTag.class);
+      ((ByteArrayTag) target).setValue(value);
+    } else if (array instanceof int[]) {
+      int[] value = (int[]) array;
+      if (length != null) value = Arrays.copyOf(value, newLength(patch, length, value.length));
+      applyRanges(patch, value, IntArrayTag.class);
+      ((IntArrayTag) target).setValue(value);
+    } else if (array instanceof long[]) {
+      long[] value = (long[]) array;
+      if (length != null) value = Arrays.copyOf(value, newLength(patch, length, value.length));
+      applyRanges(patch, value, LongArrayTag.class);
+      ((LongArrayTag) target).setValue(value);
+    } else {
+      throw new ClassCastException("The patch target is not an array: " + target.getType());
+    }
+  }
+
+  // A diff only grows an array up to the end of its last range, which bounds the allocation by the patch size
+  private static int newLength(@NotNull CompoundTag patch, @NotNull NumericTag<?> length, int current) {
+    int value = length.value.intValue();
+    long limit = current;
+    ListTag ranges = child(patch, RANGES, ListTag.class);
+    if (ranges != null) {
+      for (BaseTag<?> element : ranges.value) {
+        CompoundTag range = cast(element, CompoundTag.class);
+        BaseTag<?> values = range.peek(VALUES);
+        if (values != null && (values.value instanceof byte[] || values.value instanceof int[] || values.value instanceof long[]))
+          limit = Math.max(limit, (long) intOf(range, INDEX) + length(values.value));
+      }
+    }
+    if (value < 0 || value > limit) throw new IndexOutOfBoundsException("Invalid array length: " + value);
+    return value;
+  }
+
+  private static void applyRanges(@NotNull CompoundTag patch, @NotNull Object array, @NotNull Class<? extends BaseTag<?>> type) {
+    ListTag ranges = child(patch, RANGES, ListTag.class);
+    if (ranges == null) return;
+    for (BaseTag<?> element : ranges.value) {
+      CompoundTag range = cast(element, CompoundTag.class);
+      BaseTag<?> values = cast(range.peek(VALUES), type);
+      System.arraycopy(values.value, 0, array, intOf(range, INDEX), length(values.value));
+    }
+  }
+
+  @Nullable
+  private static <T> T child(@NotNull CompoundTag patch, @NotNull String key, @NotNull Class<T> type) {
+    BaseTag<?> value = patch.peek(key);
+    return value != null ? cast(value, type) : null;
+  }
+
+  @NotNull
+  private static <T> T target(@NotNull CompoundTag target, @NotNull String key, @NotNull Class<T> type) {
+    BaseTag<?> value = target.get(key);
+    if (value == null) throw new NoSuchElementException("The patch target does not exist: " + key);
+    return cast(value, type);
+  }
+
+  @NotNull
+  private static <T> T cast(@Nullable BaseTag<?> value, @NotNull Class<T> type) {
+    if (value == null) throw new NoSuchElementException("The patch value does not exist.");
+    if (!type.isInstance(value)) throw new ClassCastException(
+      "The patch value type '" + value.getType() + "' does not match. (Expected: " + type.getSimpleName() + ")");
+    return type.cast(value);
+  }
+
+  private static int intOf(@NotNull CompoundTag compound, @NotNull String key) {
+    NumericTag<?> value = cast(compound.peek(key), NumericTag.class);
+    return value.value.intValue();
+  }
+}
@@ -0,0 +1,432 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A compiled path into a tag tree, for example {@code display.Lore[0]} or
+ * {@code Enchantments[{id:"minecraft:sharpness"}].lvl}.
+ *
+ * <ul>
+ *   <li>{@code key} or {@code "quoted key"} - the value of the key in a compound</li>
+ *   <li>{@code key{filter}} - the value of the key if it matches the filter compound</li>
+ *   <li>{@code [index]} - the element at the index of a list or array, negative indexes count from the end</li>
+ *   <li>{@code []} - all elements of a list or array</li>
+ *   <li>{@code [{filter}]} - all compound elements of a list that match the filter compound</li>
+ *   <li>{@code {filter}} - the root if it matches the filter compound, only as the first node</li>
+ * </ul>
+ *
+ * A value matches a filter if every key of the filter is present and equal, nested compounds are matched
+ * the same way and every element of a filter list must match one element of the list. Matched values are
+ * handed out the way the compounds on their path hand out values, below an immutable, lazy or copy-on-write
+ * compound they are copies. Compiled paths are cached and thread-safe.
+ */
+public final class NBTPath {
+  private final static int KIND_KEY = 0;
+  private final static int KIND_INDEX = 1;
+  private final static int KIND_ALL = 2;
+  private final static int KIND_FILTER = 3;
+
+  // How the compounds on the way hand out their values, the strictest one applies to the result
+  private final static int ACCESS_LIVE = 0;
+  private final static int ACCESS_READ_ONLY = 1;
+  private final static int ACCESS_COPY = 2;
+
+  private final static int MAX_CACHE_SIZE = 1024;
+  private final static Map<String, NBTPath> CACHE = new ConcurrentHashMap<>();
+
+  @NotNull private final String path;
+  @NotNull private final Step[] steps;
+
+  private NBTPath(@NotNull String path, @NotNull Step[] steps) {
+    this.path = path;
+    this.steps = steps;
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTPath compile(String path) throws IllegalArgumentException {
+    Objects.requireNonNull(path, "path");
+    NBTPath compiled = CACHE.get(path);
+    if (compiled == null) {
+      compiled = new NBTPath(path, new Compiler(path).compile());
+      if (CACHE.size() >= MAX_CACHE_SIZE) CACHE.clear();
+      CACHE.put(path, compiled);
+    }
+    return compiled;
+  }
+
+  @NotNull
+  public String getPath() {
+    return path;
+  }
+
+  /**
+   * Returns the first value matched by this path, or {@code null} if there is none.
+   */
+  @Nullable
+  @Contract("null -> fail")
+  public BaseTag<?> get(BaseTag<?> root) {
+    Objects.requireNonNull(root, "root");
+    List<BaseTag<?>> result = new ArrayList<>(1);
+    eval(root, 0, ACCESS_LIVE, result, 1);
+    return result.isEmpty() ? null : result.get(0);
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public List<BaseTag<?>> getAll(BaseTag<?> root) {
+    Objects.requireNonNull(root, "root");
+    List<BaseTag<?>> result = new ArrayList<>();
+    eval(root, 0, ACCESS_LIVE, result, Integer.MAX_VALUE);
+    return result;
+  }
+
+  /**
+   * Reads the next value of the reader and returns the first value matched by this path, or {@code null}
+   * if there is none. Only matched values and values needed by filters are decoded, everything else is
+   * skipped. The whole value is consumed from the reader.
+   */
+  @Nullable
+  @Contract("null -> fail")
+  public BaseTag<?> read(NBTReader reader) throws IOException {
+    Objects.requireNonNull(reader, "reader");
+    List<BaseTag<?>> result = new ArrayList<>(1);
+    read(reader, 0, result, 1);
+    return result.isEmpty() ? null : result.get(0);
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public List<BaseTag<?>> readAll(NBTReader reader) throws IOException {
+    Objects.requireNonNull(reader, "reader");
+    List<BaseTag<?>> result = new ArrayList<>();
+    read(reader, 0, result, Integer.MAX_VALUE);
+    return result;
+  }
+
+  /// Evaluation
+
+  // Returns true once the limit is reached
+  private boolean eval(@NotNull BaseTag<?> node, int index, int access, @NotNull List<BaseTag<?>> result, int limit) {
+    if (index == steps.length) {
+      result.add(expose(node, access));
+      return result.size() >= limit;
+    }
+    Step step = steps[index];
+    switch (step.kind) {
+      case KIND_KEY: {
+        if (!(node instanceof CompoundTag)) return false;
+        CompoundTag compound = (CompoundTag) node;
+        BaseTag<?> child = compound.peek(step.key); // only the result is copied
+        if (child == null || (step.filter != null && !matches(step.filter, child))) return false;
+        return eval(child, index + 1, Math.max(access, accessOf(compound)), result, limit);
+      }
+      case KIND_FILTER:
+        return matches(step.filter, node) && eval(node, index + 1, access, result, limit);
+      case KIND_INDEX: {
+        int size = sizeOf(node);
+        int i = step.index < 0 ? size + step.index : step.index;
+        if (i < 0 || i >= size) return false;
+        return eval(elementOf(node, i), index + 1, access, result, limit);
+      }
+      case KIND_ALL: {
+        int size = sizeOf(node);
+        for (int i = 0; i < size; i++) {
+          BaseTag<?> element = elementOf(node, i);
+          if (step.filter != null && !matches(step.filter, element)) continue;
+          if (eval(element, index + 1, access, result, limit)) return true;
+        }
+        return false;
+      }
+      default:
+        throw new IllegalStateException();
+    }
+  }
+
+  private static int accessOf(@NotNull CompoundTag compound) {
+    if (compound instanceof ImmutableCompoundTag || compound instanceof LazyCompoundTag) return ACCESS_READ_ONLY;
+    return compound.isShared() ? ACCESS_COPY : ACCESS_LIVE;
+  }
+
+  @NotNull
+  private static BaseTag<?> expose(@NotNull BaseTag<?> node, int access) {
+    switch (access) {
+      case ACCESS_READ_ONLY:
+        return node instanceof ImmutableCompoundTag || node instanceof LazyCompoundTag ? node : node.clone();
+      case ACCESS_COPY:
+        return node.clone();
+      default:
+        return node;
+    }
+  }
+
+  private static int sizeOf(@NotNull BaseTag<?> node) {
+    if (node instanceof ListTag) return ((ListTag) node).size();
+    if (node instanceof ByteArrayTag) return ((ByteArrayTag) node).value.length;
+    if (node instanceof IntArrayTag) return ((IntArrayTag) node).value.length;
+    if (node instanceof LongArrayTag) return ((LongArrayTag) node).value.length;
+    return 0;
+  }
+
+  @NotNull
+  private static BaseTag<?> elementOf(@NotNull BaseTag<?> node, int index) {
+    if (node instanceof ListTag) return ((ListTag) node).value.get(index); // numeric lists are not inflated
+    if (node instanceof ByteArrayTag) return new ByteTag(((ByteArrayTag) node).value[index]);
+    if (node instanceof IntArrayTag) return new IntTag(((IntArrayTag) node).value[index]);
+    return new LongTag(((LongArrayTag) node).value[index]);
+  }
+
+  private static boolean matches(@NotNull BaseTag<?> filter, @NotNull BaseTag<?> value) {
+    if (filter instanceof CompoundTag) {
+      if (!(value instanceof CompoundTag)) return false;
+      CompoundTag compound = (CompoundTag) value;
+      for (Map.Entry<String, BaseTag<?>> entry : ((CompoundTag) filter).entries().entrySet()) {
+        BaseTag<?> other = compound.peek(entry.getKey());
+        if (other == null || !matches(entry.getValue(), other)) return false;
+      }
+      return true;
+    }
+    if (filter instanceof ListTag) {
+      if (!(value instanceof ListTag)) return false;
+      List<BaseTag<?>> filters = ((ListTag) filter).value, elements = ((ListTag) value).value;
+      if (filters.isEmpty()) return elements.isEmpty();
+      for (BaseTag<?> element : filters) {
+        boolean found = false;
+        for (int i = 0, size = elements.size(); i < size && !found; i++)
+          found = matches(element, elements.get(i));
+        if (!found) return false;
+      }
+      return true;
+    }
+    return filter.equals(value);
+  }
+
+  // Returns true once the limit is reached, the current value is always consumed
+  private boolean read(@NotNull NBTReader reader, int index, @NotNull List<BaseTag<?>> result, int limit) throws IOException {
+    if (index == steps.length) {
+      result.add(reader.readTag());
+      return result.size() >= limit;
+    }
+    Step step = steps[index];
+    TagType type = reader.peekType();
+    if (step.kind == KIND_KEY && type == TagType.COMPOUND) {
+      boolean done = false;
+      reader.beginCompound();
+      while (reader.hasNext()) {
+        if (!reader.nextName().equals(step.key)) {
+          reader.skipValue();
+        } else if (step.filter != null) {
+          BaseTag<?> child = reader.readTag();
+          done = matches(step.filter, child) && eval(child, index + 1, ACCESS_LIVE, result, limit);
+          break;
+        } else {
+          done = read(reader, index + 1, result, limit);
+          break;
+        }
+      }
+      reader.endCompound();
+      return done;
+    }
+    if ((step.kind == KIND_INDEX || step.kind == KIND_ALL) && type == TagType.LIST) {
+      boolean done = false;
+      int length = reader.beginList();
+      int target = step.kind == KIND_ALL ? -1 : step.index < 0 ? length + step.index : step.index;
+      for (int i = 0; reader.hasNext() && !done; i++) {
+        if (step.kind == KIND_INDEX && i != target) {
+          reader.skipValue();
+        } else if (step.filter != null) {
+          BaseTag<?> element = reader.readTag();
+          done = matches(step.filter, element) && eval(element, index + 1, ACCESS_LIVE, result, limit);
+        } else {
+          done = read(reader, index + 1, result, limit);
+        }
+        if (step.kind == KIND_INDEX && i == target) break;
+      }
+      reader.endList();
+      return done;
+    }
+    if (step.kind == KIND_FILTER || ((step.kind == KIND_INDEX || step.kind == KIND_ALL) && isArray(type)))
+      return eval(reader.readTag(), index, ACCESS_LIVE, result, limit);
+    reader.skipValue();
+    return false;
+  }
+
+  private static boolean isArray(@NotNull TagType type) {
+    return type == TagType.BYTE_ARRAY || type == TagType.INT_ARRAY || type == TagType.LONG_ARRAY;
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (o == null || getClass() != o.getClass()) return false;
+    return path.equals(((NBTPath) o).path);
+  }
+
+  @Override
+  public int hashCode() {
+    return path.hashCode();
+  }
+
+  @Override
+  public String toString() {
+    return "NBTPath{" +
+      "path=" + path +
+      '}';
+  }
+
+  private final static class Step {
+    final int kind;
+    @Nullable final String key;
+    final int index;
+    @Nullable final CompoundTag filter;
+
+    Step(int kind, @Nullable String key, int index, @Nullable CompoundTag filter) {
+      this.kind = kind;
+      this.key = key;
+      this.index = index;
+      this.filter = filter;
+    }
+  }
+
+  private final static class Compiler {
+    @NotNull final String path;
+    final List<Step> steps = new ArrayList<>();
+    int cursor;
+
+    Compiler(@NotNull String path) {
+      this.path = path;
+    }
+
+    @NotNull
+    Step[] compile() {
+      if (path.isEmpty()) throw error("Empty path");
+      if (peek() == '{') steps.add(new Step(KIND_FILTER, null, 0, readFilter()));
+      else if (peek() != '[') readKey();
+      while (cursor < path.length()) {
+        char c = peek();
+        if (c == '[') {
+          readBracket();
+        } else if (c == '.') {
+          cursor++;
+          readKey();
+        } else {
+          throw error("Expected '.' or '['");
+        }
+      }
+      return steps.toArray(new Step[0]);
+    }
+
+    private char peek() {
+      return path.charAt(cursor);
+    }
+
+    @NotNull
+    private IllegalArgumentException error(@NotNull String message) {
+      return new IllegalArgumentException("Invalid NBT path '" + path + "' at " + cursor + ": " + message);
+    }
+
+    private void readKey() {
+      if (cursor >= path.length()) throw error("Expected key");
+      String key;
+      if (peek() == '"') {
+        StringBuilder builder = new StringBuilder();
+        cursor++;
+        while (true) {
+          if (cursor >= path.length()) throw error("Unclosed quoted key");
+          char c = path.charAt(cursor++);
+          if (c == '"') break;
+          if (c == '\\' && cursor < path.length()) c = path.charAt(cursor++);
+          builder.append(c);
+        }
+        key = builder.toString();
+      } else {
+        int start = cursor;
+        while (cursor < path.length() && isKeyChar(peek())) cursor++;
+        if (cursor == start) throw error("Expected key");
+        key = path.substring(start, cursor);
+      }
+      CompoundTag filter = cursor < path.length() && peek() == '{' ? readFilter() : null;
+      steps.add(new Step(KIND_KEY, key, 0, filter));
+    }
+
+    private static boolean isKeyChar(char c) {
+      return c != '.' && c != '[' && c != ']' && c != '{' && c != '}' && c != '"' && !Character.isWhitespace(c);
+    }
+
+    private void readBracket() {
+      cursor++; // [
+      if (cursor >= path.length()) throw error("Unclosed '['");
+      char c = peek();
+      if (c == ']') {
+        steps.add(new Step(KIND_ALL, null, 0, null));
+      } else if (c == '{') {
+        steps.add(new Step(KIND_ALL, null, 0, readFilter()));
+      } else {
+        int start = cursor;
+        if (c == '-') cursor++;
+        while (cursor < path.length() && peek() >= '0' && peek() <= '9') cursor++;
+        try {
+          steps.add(new Step(KIND_INDEX, null, Integer.parseInt(path.substring(start, cursor)), null));
+        } catch (NumberFormatException e) {
+          cursor = start;
+          throw error("Expected index");
+        }
+      }
+      if (cursor >= path.length() || peek() != ']') throw error("Expected ']'");
+      cursor++;
+    }
+
+    @NotNull
+    private CompoundTag readFilter() {
+      int start = cursor, depth = 0;
+      char quote = 0;
+      for (; cursor < path.length(); cursor++) {
+        char c = peek();
+        if (quote != 0) {
+          if (c == '\\') cursor++;
+          else if (c == quote) quote = 0;
+        } else if (c == '"' || c == '\'') {
+          quote = c;
+        } else if (c == '{') {
+          depth++;
+        } else if (c == '}' && --depth == 0) {
+          cursor++;
+          try {
+            return MojangsonParser.parseCompound(path.substring(start, cursor)).toImmutable();
+          } catch (IllegalArgumentException e) {
+            cursor = start;
+            throw error("Invalid filter, " + e.getMessage());
+          }
+        }
+      }
+      cursor = start;
+      throw error("Unclosed filter");
+    }
+  }
+}
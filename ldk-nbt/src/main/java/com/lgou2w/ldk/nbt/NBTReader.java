@@ -0,0 +1,292 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+
+import java.io.Closeable;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A pull parser for binary NBT that walks the document token by token without building the tag tree.
+ *
+ * <pre>{@code
+ * try (NBTReader reader = new NBTReader(input)) {
+ *   reader.nextName();
+ *   reader.beginCompound();
+ *   while (reader.hasNext()) {
+ *     String name = reader.nextName();
+ *     if (name.equals("id")) return reader.readString();
+ *     reader.skipValue();
+ *   }
+ *   reader.endCompound();
+ * }
+ * }</pre>
+ */
+public final class NBTReader implements Closeable {
+  @NotNull private final DataInput input;
+
+  private final static int SCOPE_ROOT = 0;
+  private final static int SCOPE_COMPOUND = 1;
+  private final static int SCOPE_LIST = 2;
+
+  private int[] scopes = new int[16];
+  private int[] remaining = new int[16];
+  private TagType[] elementTypes = new TagType[16];
+  private int depth = 1;
+
+  private TagType peeked; // next value type of root or compound scope, null if not peeked
+  private boolean nameRead;
+  private boolean rootConsumed;
+
+  @Contract("null -> fail")
+  public NBTReader(DataInput input) {
+    this.input = Objects.requireNonNull(input, "input");
+    this.scopes[0] = SCOPE_ROOT;
+  }
+
+  @Contract("null -> fail")
+  public NBTReader(InputStream input) {
+    this((DataInput) new DataInputStream(Objects.requireNonNull(input, "input")));
+  }
+
+  @Contract("null -> fail")
+  public NBTReader(ByteBuffer buffer) {
+    this((DataInput) new ByteBufferInput(Objects.requireNonNull(buffer, "buffer")));
+  }
+
+  @Contract("null, _ -> fail; _, null -> fail")
+  public NBTReader(InputStream input, NBTInternPool pool) {
+    this((DataInput) new PooledDataInput(
+      new DataInputStream(Objects.requireNonNull(input, "input")),
+      Objects.requireNonNull(pool, "pool")));
+  }
+
+  @Contract("null, _ -> fail; _, null -> fail")
+  public NBTReader(ByteBuffer buffer, NBTInternPool pool) {
+    this((DataInput) new ByteBufferInput(
+      Objects.requireNonNull(buffer, "buffer"),
+      Objects.requireNonNull(pool, "pool")));
+  }
+
+  public int getDepth() {
+    return depth - 1;
+  }
+
+  /**
+   * Returns the type of the next value in the current scope, or {@link TagType#END} if there are no more values.
+   */
+  @NotNull
+  public TagType peekType() throws IOException {
+    switch (scopes[depth - 1]) {
+      case SCOPE_LIST:
+        return remaining[depth - 1] > 0 ? elementTypes[depth - 1] : TagType.END;
+      case SCOPE_ROOT:
+        return rootConsumed ? TagType.END : peekTagType();
+      default:
+        return peekTagType();
+    }
+  }
+
+  @NotNull
+  private TagType peekTagType() throws IOException {
+    if (peeked == null) {
+      int id = input.readUnsignedByte();
+      TagType type = TagType.fromId(id);
+      if (type == null) throw new IOException("Unknown tag type id: " + id);
+      peeked = type;
+    }
+    return peeked;
+  }
+
+  public boolean hasNext() throws IOException {
+    return peekType() != TagType.END;
+  }
+
+  /**
+   * Returns the name of the next value, must be called before reading a value of the root or compound scope.
+   */
+  @NotNull
+  public String nextName() throws IOException {
+    if (scopes[depth - 1] == SCOPE_LIST) throw new IllegalStateException("List elements have no name.");
+    if (peekType() == TagType.END) throw new IllegalStateException("No more values in the current scope.");
+    if (nameRead) throw new IllegalStateException("Name has already been read.");
+    nameRead = true;
+    return input.readUTF();
+  }
+
+  @NotNull
+  private TagType nextValue(@NotNull TagType expected) throws IOException {
+    TagType type = peekType();
+    if (type == TagType.END) throw new IllegalStateException("No more values in the current scope.");
+    if (expected != TagType.END && type != expected)
+      throw new IllegalStateException("Expected " + expected + " but was " + type + ".");
+    int scope = scopes[depth - 1];
+    if (scope == SCOPE_LIST) {
+      remaining[depth - 1]--;
+    } else {
+      if (!nameRead) NBTStreams.skipFully(input, input.readUnsignedShort());
+      if (scope == SCOPE_ROOT) rootConsumed = true;
+      peeked = null;
+      nameRead = false;
+    }
+    return type;
+  }
+
+  private void push(int scope, int length, TagType elementType) {
+    if (depth == scopes.length) {
+      scopes = Arrays.copyOf(scopes, depth * 2);
+      remaining = Arrays.copyOf(remaining, depth * 2);
+      elementTypes = Arrays.copyOf(elementTypes, depth * 2);
+    }
+    scopes[depth] = scope;
+    remaining[depth] = length;
+    elementTypes[depth] = elementType;
+    depth++;
+  }
+
+  public void beginCompound() throws IOException {
+    nextValue(TagType.COMPOUND);
+    push(SCOPE_COMPOUND, 0, null);
+  }
+
+  /**
+   * Skips any unread entries of the current compound and leaves its scope.
+   */
+  public void endCompound() throws IOException {
+    if (scopes[depth - 1] != SCOPE_COMPOUND) throw new IllegalStateException("Not in a compound scope.");
+    while (hasNext()) skipValue();
+    peeked = null;
+    nameRead = false;
+    depth--;
+  }
+
+  /**
+   * Enters the list and returns its length, the element type is available from {@link #peekType()}.
+   */
+  public int beginList() throws IOException {
+    nextValue(TagType.LIST);
+    int id = input.readUnsignedByte();
+    TagType elementType = TagType.fromId(id);
+    if (elementType == null) throw new IOException("Unknown list element type id: " + id);
+    int length = input.readInt();
+    if (elementType == TagType.END || length < 0) length = 0;
+    push(SCOPE_LIST, length, elementType);
+    return length;
+  }
+
+  /**
+   * Skips any unread elements of the current list and leaves its scope.
+   */
+  public void endList() throws IOException {
+    if (scopes[depth - 1] != SCOPE_LIST) throw new IllegalStateException("Not in a list scope.");
+    while (hasNext()) skipValue();
+    depth--;
+  }
+
+  public byte readByte() throws IOException {
+    nextValue(TagType.BYTE);
+    return input.readByte();
+  }
+
+  public boolean readBoolean() throws IOException {
+    return readByte() != 0;
+  }
+
+  public short readShort() throws IOException {
+    nextValue(TagType.SHORT);
+    return input.readShort();
+  }
+
+  public int readInt() throws IOException {
+    nextValue(TagType.INT);
+    return input.readInt();
+  }
+
+  public long readLong() throws IOException {
+    nextValue(TagType.LONG);
+    return input.readLong();
+  }
+
+  public float readFloat() throws IOException {
+    nextValue(TagType.FLOAT);
+    return input.readFloat();
+  }
+
+  public double readDouble() throws IOException {
+    nextValue(TagType.DOUBLE);
+    return input.readDouble();
+  }
+
+  @NotNull
+  public String readString() throws IOException {
+    nextValue(TagType.STRING);
+    return input.readUTF();
+  }
+
+  public byte @NotNull [] readByteArray() throws IOException {
+    nextValue(TagType.BYTE_ARRAY);
+    ByteArrayTag tag = new ByteArrayTag();
+    tag.read(input);
+    return tag.value;
+  }
+
+  public int @NotNull [] readIntArray() throws IOException {
+    nextValue(TagType.INT_ARRAY);
+    IntArrayTag tag = new IntArrayTag();
+    tag.read(input);
+    return tag.value;
+  }
+
+  public long @NotNull [] readLongArray() throws IOException {
+    nextValue(TagType.LONG_ARRAY);
+    LongArrayTag tag = new LongArrayTag();
+    tag.read(input);
+    return tag.value;
+  }
+
+  /**
+   * Reads the next value of any type as a tag, materializing the whole subtree.
+   */
+  @NotNull
+  public BaseTag<?> readTag() throws IOException {
+    TagType type = nextValue(TagType.END);
+    BaseTag<?> tag = TagType.create(type);
+    tag.read(input);
+    return tag;
+  }
+
+  /**
+   * Skips the next value, including its name. String and array payloads are skipped by length without decoding.
+   */
+  public void skipValue() throws IOException {
+    TagType type = nextValue(TagType.END);
+    NBTStreams.skip(input, type);
+  }
+
+  @Override
+  public void close() throws IOException {
+    if (input instanceof Closeable) ((Closeable) input).close();
+  }
+}
@@ -19,6 +19,8 @@ package com.lgou2w.ldk.nbt;
 import org.jetbrains.annotations.Contract;
 import org.jetbrains.annotations.NotNull;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
 import java.io.ByteArrayInputStream;
 import java.io.ByteArrayOutputStream;
 import java.io.DataInput;
@@ -29,13 +31,32 @@ import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.FileOutputStream;
+import java.io.FilterOutputStream;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Base64;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Objects;
-import java.util.zip.GZIPInputStream;
-import java.util.zip.GZIPOutputStream;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadLocalRandom;
 
 public final class NBTStreams {
 
@@ -60,10 +81,76 @@ public final class NBTStreams {
     return NBTMetadata.of(name, base);
   }
 
+  /**
+   * Read the NBT metadata, decoding compound keys and string values through the given intern pool.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(InputStream input, NBTInternPool pool) throws IOException {
+    Objects.requireNonNull(input, "input");
+    return read((DataInput) new DataInputStream(input), pool);
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(DataInput input, NBTInternPool pool) throws IOException {
+    Objects.requireNonNull(input, "input");
+    Objects.requireNonNull(pool, "pool");
+    return read((DataInput) new PooledDataInput(input, pool));
+  }
+
+  /**
+   * Read the NBT metadata without recursion, failing with an {@link IOException} as soon as the input
+   * exceeds the depth or byte budget of the given limits.
+   *
+   * @see NBTLimits#DEFAULT
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(InputStream input, NBTLimits limits) throws IOException {
+    Objects.requireNonNull(input, "input");
+    return read((DataInput) new DataInputStream(input), limits);
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(DataInput input, NBTLimits limits) throws IOException {
+    Objects.requireNonNull(input, "input");
+    Objects.requireNonNull(limits, "limits");
+    return new IterativeDecoder(input, limits, null).read();
+  }
+
+  /**
+   * Read the NBT metadata like {@link #read(DataInput, NBTLimits)}, but every compound and list is made
+   * immutable and replaced by its canonical tag in the given table. Compounds are read as
+   * {@link ImmutableCompoundTag}, and structurally equal subtrees across reads share one instance.
+   */
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTMetadata read(InputStream input, NBTLimits limits, NBTDedupTable table) throws IOException {
+    Objects.requireNonNull(input, "input");
+    return read((DataInput) new DataInputStream(input), limits, table);
+  }
+
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTMetadata read(DataInput input, NBTLimits limits, NBTDedupTable table) throws IOException {
+    Objects.requireNonNull(input, "input");
+    Objects.requireNonNull(limits, "limits");
+    Objects.requireNonNull(table, "table");
+    return new IterativeDecoder(input, limits, table).read();
+  }
+
   @Contract("null, _ -> fail; _, null -> fail")
   public static void write(OutputStream output, NBTMetadata metadata) throws IOException {
     Objects.requireNonNull(output, "output");
-    write((DataOutput) new DataOutputStream(output), metadata);
+    if (output instanceof BufferedOutputStream || output instanceof ByteArrayOutputStream) {
+      write((DataOutput) new DataOutputStream(output), metadata);
+    } else {
+      DataOutputStream buffered = new DataOutputStream(new BufferedOutputStream(output));
+      write((DataOutput) buffered, metadata);
+      buffered.flush();
+    }
   }
 
   @Contract("null, _ -> fail; _, null -> fail;")
@@ -78,44 +165,561 @@ public final class NBTStreams {
     }
   }
 
+  /**
+   * Returns the exact number of bytes written by {@link #write(DataOutput, NBTMetadata)}, without writing.
+   */
+  @Contract("null -> fail")
+  public static int measure(NBTMetadata metadata) {
+    Objects.requireNonNull(metadata, "metadata");
+    if (metadata.isEndType()) return 1;
+    return 3 + ModifiedUTF8.length(metadata.getName()) + metadata.getValue().sizeInBytes();
+  }
+
+  /**
+   * Read the NBT metadata from the remaining bytes of the given buffer, the buffer position
+   * is advanced past the decoded bytes. Both heap and direct buffers are supported and the
+   * byte order of the buffer is ignored (NBT is always big-endian).
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTMetadata read(ByteBuffer buffer) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    ByteBufferInput input = new ByteBufferInput(buffer);
+    NBTMetadata metadata = read((DataInput) input);
+    buffer.position(input.position());
+    return metadata;
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(ByteBuffer buffer, NBTInternPool pool) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(pool, "pool");
+    ByteBufferInput input = new ByteBufferInput(buffer, pool);
+    NBTMetadata metadata = read((DataInput) input);
+    buffer.position(input.position());
+    return metadata;
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata read(ByteBuffer buffer, NBTLimits limits) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(limits, "limits");
+    ByteBufferInput input = new ByteBufferInput(buffer);
+    NBTMetadata metadata = new IterativeDecoder(input, limits, null).read();
+    buffer.position(input.position());
+    return metadata;
+  }
+
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTMetadata read(ByteBuffer buffer, NBTLimits limits, NBTDedupTable table) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(limits, "limits");
+    Objects.requireNonNull(table, "table");
+    ByteBufferInput input = new ByteBufferInput(buffer);
+    NBTMetadata metadata = new IterativeDecoder(input, limits, table).read();
+    buffer.position(input.position());
+    return metadata;
+  }
+
+  /**
+   * Read the NBT metadata like {@link #read(ByteBuffer)}, but lists of at least 1024 compounds or lists
+   * are decoded in parallel on the given pool. The element boundaries are found first by skipping the
+   * elements, then ranges of elements are decoded on the pool and assembled in order.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata readParallel(ByteBuffer buffer, ForkJoinPool pool) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(pool, "pool");
+    return new ParallelDecoder(pool, null, ParallelDecoder.DEFAULT_THRESHOLD).read(buffer);
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTMetadata readParallel(ByteBuffer buffer) throws IOException {
+    return readParallel(buffer, ForkJoinPool.commonPool());
+  }
+
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTMetadata readParallel(ByteBuffer buffer, NBTInternPool internPool, ForkJoinPool pool) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    Objects.requireNonNull(internPool, "internPool");
+    Objects.requireNonNull(pool, "pool");
+    return new ParallelDecoder(pool, internPool, ParallelDecoder.DEFAULT_THRESHOLD).read(buffer);
+  }
+
+  /**
+   * Write the NBT metadata into the given buffer, starting at its current position.
+   *
+   * @throws java.nio.BufferOverflowException If the buffer does not have enough space remaining.
+   */
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static void write(ByteBuffer buffer, NBTMetadata metadata) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    ByteBufferOutput output = new ByteBufferOutput(buffer, false);
+    write((DataOutput) output, metadata);
+    buffer.position(output.position());
+  }
+
+  /**
+   * Write the NBT metadata into a new heap or direct buffer, the returned buffer is flipped and ready to be read.
+   */
+  @NotNull
+  @Contract("null, _ -> fail")
+  public static ByteBuffer writeBuffer(NBTMetadata metadata, boolean direct) throws IOException {
+    Objects.requireNonNull(metadata, "metadata");
+    ByteBufferOutput output = new ByteBufferOutput(measure(metadata), direct);
+    write((DataOutput) output, metadata);
+    ByteBuffer buffer = output.buffer();
+    buffer.flip();
+    return buffer;
+  }
+
+  /**
+   * Read the NBT metadata from the remaining bytes of the given buffer without decoding it.
+   * If the root is a compound, its value is a read-only {@link LazyCompoundTag} that shares
+   * the buffer content, the buffer must not be modified while the view is in use. Other root
+   * types are decoded as usual. The buffer position is advanced past the root tag.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTMetadata readView(ByteBuffer buffer) throws IOException {
+    Objects.requireNonNull(buffer, "buffer");
+    ByteBufferInput input = new ByteBufferInput(buffer);
+    TagType type = TagType.fromId(input.readUnsignedByte());
+    if (type != TagType.COMPOUND) return read(buffer);
+    String name = input.readUTF();
+    int start = input.position();
+    skip(input, type);
+    ByteBuffer payload = buffer.duplicate();
+    payload.limit(input.position()).position(start);
+    buffer.position(input.position());
+    return NBTMetadata.of(name, new LazyCompoundTag(payload.slice()));
+  }
+
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTMetadata readView(byte[] bytes) throws IOException {
+    Objects.requireNonNull(bytes, "bytes");
+    return readView(ByteBuffer.wrap(bytes));
+  }
+
+  static void skip(@NotNull DataInput input, @NotNull TagType type) throws IOException {
+    switch (type) {
+      case END: break;
+      case BYTE: skipFully(input, 1); break;
+      case SHORT: skipFully(input, 2); break;
+      case INT: case FLOAT: skipFully(input, 4); break;
+      case LONG: case DOUBLE: skipFully(input, 8); break;
+      case BYTE_ARRAY: skipFully(input, checkLength(input.readInt())); break;
+      case STRING: skipFully(input, input.readUnsignedShort()); break;
+      case INT_ARRAY: skipFully(input, checkLength(input.readInt()) * 4L); break;
+      case LONG_ARRAY: skipFully(input, checkLength(input.readInt()) * 8L); break;
+      case LIST: {
+        TagType elementType = TagType.fromId(input.readUnsignedByte());
+        int length = input.readInt();
+        if (elementType == null || elementType == TagType.END || length <= 0) break;
+        int size = fixedSize(elementType);
+        if (size > 0) {
+          skipFully(input, (long) length * size);
+        } else {
+          for (int i = 0; i < length; i++) skip(input, elementType);
+        }
+        break;
+      }
+      case COMPOUND: {
+        TagType entryType;
+        while ((entryType = TagType.fromId(input.readUnsignedByte())) != null && entryType != TagType.END) {
+          skipFully(input, input.readUnsignedShort());
+          skip(input, entryType);
+        }
+        break;
+      }
+    }
+  }
+
+  static int fixedSize(@NotNull TagType type) {
+    switch (type) {
+      case BYTE: return 1;
+      case SHORT: return 2;
+      case INT: case FLOAT: return 4;
+      case LONG: case DOUBLE: return 8;
+      default: return -1;
+    }
+  }
+
+  private static int checkLength(int length) throws IOException {
+    if (length < 0) throw new IOException("Negative length: " + length);
+    return length;
+  }
+
+  static void skipFully(@NotNull DataInput input, long length) throws IOException {
+    while (length > 0) {
+      int skipped = input.skipBytes((int) Math.min(length, Integer.MAX_VALUE));
+      if (skipped <= 0) {
+        input.readByte(); // throws EOFException at the end of input
+        skipped = 1;
+      }
+      length -= skipped;
+    }
+  }
+
   @NotNull
   @Contract("null -> fail")
   public static NBTMetadata readBase64(String encoded) throws IllegalArgumentException, IOException {
+    return readBase64(encoded, NBTCompression.NONE);
+  }
+
+  /**
+   * Read the NBT metadata from a Base64 string whose content is compressed with the given codec.
+   * The content is decoded into a reused per-thread buffer.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata readBase64(String encoded, NBTCompression compression) throws IllegalArgumentException, IOException {
     Objects.requireNonNull(encoded, "encoded");
-    byte[] bytes = Base64.getDecoder().decode(encoded);
-    return read(new ByteArrayInputStream(bytes));
+    Objects.requireNonNull(compression, "compression");
+    byte[] source = encoded.getBytes(StandardCharsets.ISO_8859_1);
+    Base64Scratch scratch = BASE64_SCRATCH.get();
+    byte[] decoded = scratch.decoded(source.length / 4 * 3 + 3);
+    try {
+      int length = Base64.getDecoder().decode(source, decoded);
+      if (compression.getType() == NBTCompression.Type.NONE)
+        return read(ByteBuffer.wrap(decoded, 0, length));
+      try (InputStream input = new BufferedInputStream(compression.decompress(new ByteArrayInputStream(decoded, 0, length)))) {
+        return read(input);
+      }
+    } finally {
+      scratch.release();
+    }
   }
 
   @NotNull
   @Contract("null -> fail")
   public static String writeBase64(NBTMetadata metadata) throws IOException {
+    return writeBase64(metadata, NBTCompression.NONE);
+  }
+
+  /**
+   * Write the NBT metadata as a Base64 string, compressing the content with the given codec.
+   * The content is encoded through reused per-thread buffers, the string is the only new copy.
+   */
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static String writeBase64(NBTMetadata metadata, NBTCompression compression) throws IOException {
     Objects.requireNonNull(metadata, "metadata");
-    ByteArrayOutputStream output = new ByteArrayOutputStream();
-    write(output, metadata);
-    return Base64.getEncoder().encodeToString(output.toByteArray());
+    Objects.requireNonNull(compression, "compression");
+    Base64Scratch scratch = BASE64_SCRATCH.get();
+    try {
+      ScratchOutputStream raw = scratch.raw, encoded = scratch.encoded;
+      if (compression.getType() == NBTCompression.Type.NONE) {
+        int size = measure(metadata);
+        write(ByteBuffer.wrap(raw.reserve(size), raw.size(), size), metadata);
+        raw.skip(size);
+      } else {
+        try (OutputStream output = compression.compress(raw)) {
+          write(output, metadata);
+        }
+      }
+      try (OutputStream output = Base64.getEncoder().wrap(encoded)) {
+        raw.writeTo(output);
+      }
+      return encoded.toLatin1String();
+    } finally {
+      scratch.release();
+    }
+  }
+
+  private final static int MAX_SCRATCH_CAPACITY = 1 << 20;
+  private final static ThreadLocal<Base64Scratch> BASE64_SCRATCH = ThreadLocal.withInitial(Base64Scratch::new);
+
+  // Buffers larger than MAX_SCRATCH_CAPACITY are not kept after use
+  private final static class Base64Scratch {
+    final ScratchOutputStream raw = new ScratchOutputStream();
+    final ScratchOutputStream encoded = new ScratchOutputStream();
+    byte[] decoded = new byte[0];
+
+    @NotNull
+    byte[] decoded(int capacity) {
+      if (decoded.length < capacity) decoded = new byte[capacity];
+      return decoded;
+    }
+
+    void release() {
+      raw.release();
+      encoded.release();
+      if (decoded.length > MAX_SCRATCH_CAPACITY) decoded = new byte[0];
+    }
+  }
+
+  private final static class ScratchOutputStream extends ByteArrayOutputStream {
+    private final static int INITIAL_CAPACITY = 1024;
+
+    ScratchOutputStream() {
+      super(INITIAL_CAPACITY);
+    }
+
+    // Returns the buffer with at least length bytes free after the current count
+    byte @NotNull [] reserve(int length) {
+      if (buf.length - count < length) buf = Arrays.copyOf(buf, Math.max(buf.length << 1, count + length));
+      return buf;
+    }
+
+    void skip(int length) {
+      count += length;
+    }
+
+    @NotNull
+    String toLatin1String() {
+      return new String(buf, 0, count, StandardCharsets.ISO_8859_1);
+    }
+
+    void release() {
+      if (buf.length > MAX_SCRATCH_CAPACITY) buf = new byte[INITIAL_CAPACITY];
+      reset();
+    }
   }
 
   @NotNull
   @Contract("null, _ -> fail")
   public static NBTMetadata readFile(File file, boolean decompress) throws IOException {
+    return readFile(file, decompress ? NBTCompression.GZIP : NBTCompression.NONE);
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTMetadata readFile(File file, NBTCompression compression) throws IOException {
     Objects.requireNonNull(file, "file");
+    Objects.requireNonNull(compression, "compression");
     if (!file.exists() || file.isDirectory()) throw new FileNotFoundException(
       "File does not exist or is a directory: " + file.getAbsolutePath());
-    try (InputStream input = decompress
-      ? new GZIPInputStream(new FileInputStream(file))
-      : new FileInputStream(file)) {
+    try (InputStream stream = new FileInputStream(file);
+         InputStream input = new BufferedInputStream(compression.decompress(stream))) {
       return read(input);
     }
   }
 
   @Contract("null, _, _ -> fail; _, null, _ -> fail")
   public static void writeFile(NBTMetadata metadata, File file, boolean compress) throws IOException {
+    writeFile(metadata, file, compress ? NBTCompression.GZIP : NBTCompression.NONE);
+  }
+
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static void writeFile(NBTMetadata metadata, File file, NBTCompression compression) throws IOException {
     Objects.requireNonNull(metadata, "metadata");
     Objects.requireNonNull(file, "file");
-    try (OutputStream output = compress
-      ? new GZIPOutputStream(new FileOutputStream(file))
-      : new FileOutputStream(file)) {
+    Objects.requireNonNull(compression, "compression");
+    try (OutputStream stream = new FileOutputStream(file);
+         OutputStream output = new BufferedOutputStream(compression.compress(stream))) {
       write(output, metadata);
     }
   }
+
+  /**
+   * Memory-map the uncompressed NBT file and decode it directly from the mapped buffer.
+   * Compressed files are not supported, use {@link #readFile(File, NBTCompression)} instead.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public static NBTMetadata mapFile(Path path) throws IOException {
+    Objects.requireNonNull(path, "path");
+    if (!Files.isRegularFile(path)) throw new FileNotFoundException(
+      "File does not exist or is a directory: " + path.toAbsolutePath());
+    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size > Integer.MAX_VALUE) throw new IOException(
+        "File is too large to be mapped: " + path.toAbsolutePath() + " (" + size + " bytes)");
+      MappedByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, size);
+      if (size >= 2 && (buffer.get(0) & 0xFF) == 0x1F && (buffer.get(1) & 0xFF) == 0x8B) throw new IOException(
+        "File is gzip compressed and can not be mapped: " + path.toAbsolutePath());
+      return read(buffer);
+    }
+  }
+
+  /**
+   * Write the NBT metadata to a temporary file next to the given path, then move it over the path,
+   * atomically if the file system supports it. Readers never see a partially written file.
+   *
+   * @param durable If the temporary file is synced before the move and the directory after it, so a crash
+   *                leaves either the old or the new file. Without it the move can reach the disk before
+   *                the data and leave an empty file behind.
+   */
+  @Contract("null, _, _, _ -> fail; _, null, _, _ -> fail; _, _, null, _ -> fail")
+  public static void writeFileAtomic(NBTMetadata metadata, Path path, NBTCompression compression, boolean durable) throws IOException {
+    Objects.requireNonNull(metadata, "metadata");
+    Objects.requireNonNull(path, "path");
+    Objects.requireNonNull(compression, "compression");
+    Path temp = writeTemp(metadata, path, compression, durable);
+    moveTemp(temp, path);
+    if (durable) syncDirectory(path.toAbsolutePath().getParent());
+  }
+
+  /**
+   * Same as {@link #writeFileAtomic(NBTMetadata, Path, NBTCompression, boolean)}, durable.
+   */
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static void writeFileAtomic(NBTMetadata metadata, Path path, NBTCompression compression) throws IOException {
+    writeFileAtomic(metadata, path, compression, true);
+  }
+
+  @NotNull
+  static Path writeTemp(@NotNull NBTMetadata metadata, @NotNull Path path, @NotNull NBTCompression compression, boolean sync) throws IOException {
+    Path absolute = path.toAbsolutePath();
+    Path temp;
+    FileChannel channel;
+    // Not Files.createTempFile, its owner only permissions would end up on the target
+    while (true) {
+      int suffix = ThreadLocalRandom.current().nextInt(Integer.MAX_VALUE);
+      temp = absolute.resolveSibling("." + absolute.getFileName() + suffix + ".tmp");
+      try {
+        channel = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        break;
+      } catch (FileAlreadyExistsException e) {
+        // retry with another name
+      }
+    }
+    try (FileChannel file = channel) {
+      OutputStream stream = new NonClosingOutputStream(Channels.newOutputStream(file));
+      try (OutputStream output = new BufferedOutputStream(compression.compress(stream))) {
+        write(output, metadata);
+      }
+      if (sync) file.force(true);
+    } catch (Throwable e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+    return temp;
+  }
+
+  static void moveTemp(@NotNull Path temp, @NotNull Path path) throws IOException {
+    try {
+      try {
+        Files.move(temp, path, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+      } catch (AtomicMoveNotSupportedException e) {
+        Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+      }
+    } catch (IOException e) {
+      Files.deleteIfExists(temp);
+      throw e;
+    }
+  }
+
+  static void syncDirectory(@NotNull Path directory) {
+    try (FileChannel channel = FileChannel.open(directory, StandardOpenOption.READ)) {
+      channel.force(true);
+    } catch (IOException ignored) {
+      // Directories can not be opened on some platforms
+    }
+  }
+
+  // Keeps the file open after the compressed stream is finished, so it can be synced
+  private final static class NonClosingOutputStream extends FilterOutputStream {
+    NonClosingOutputStream(@NotNull OutputStream output) {
+      super(output);
+    }
+
+    @Override
+    public void write(byte @NotNull [] b, int off, int len) throws IOException {
+      out.write(b, off, len);
+    }
+
+    @Override
+    public void close() throws IOException {
+      flush();
+    }
+  }
+
+  /**
+   * Encode, compress and atomically write all files in parallel on the given executor, see
+   * {@link #writeFileAtomic(NBTMetadata, Path, NBTCompression)}, durable. A failed file does not abort
+   * the batch, the result holds the size of each written file and the failure of the others.
+   */
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTBatchResult<Long> writeAll(
+    Map<Path, NBTMetadata> files,
+    NBTCompression compression,
+    Executor executor
+  ) {
+    Objects.requireNonNull(files, "files");
+    Objects.requireNonNull(compression, "compression");
+    return batch(files.keySet(), executor, path -> {
+      NBTMetadata metadata = files.get(path);
+      if (metadata == null) throw new NullPointerException("metadata");
+      writeFileAtomic(metadata, path, compression);
+      return Files.size(path);
+    });
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTBatchResult<Long> writeAll(Map<Path, NBTMetadata> files, NBTCompression compression) {
+    return writeAll(files, compression, ForkJoinPool.commonPool());
+  }
+
+  /**
+   * Read and decode all files in parallel on the given executor. A failed file does not abort the batch.
+   */
+  @NotNull
+  @Contract("null, _, _ -> fail; _, null, _ -> fail; _, _, null -> fail")
+  public static NBTBatchResult<NBTMetadata> readAll(
+    Collection<Path> paths,
+    NBTCompression compression,
+    Executor executor
+  ) {
+    Objects.requireNonNull(paths, "paths");
+    Objects.requireNonNull(compression, "compression");
+    return batch(paths, executor, path -> readFile(path.toFile(), compression));
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; _, null -> fail")
+  public static NBTBatchResult<NBTMetadata> readAll(Collection<Path> paths, NBTCompression compression) {
+    return readAll(paths, compression, ForkJoinPool.commonPool());
+  }
+
+  @FunctionalInterface
+  private interface FileTask<T> {
+    T run(@NotNull Path path) throws Exception;
+  }
+
+  @NotNull
+  @SuppressWarnings("unchecked")
+  private static <T> NBTBatchResult<T> batch(@NotNull Collection<Path> paths, Executor executor, @NotNull FileTask<T> task) {
+    Objects.requireNonNull(executor, "executor");
+    Path[] keys = paths.toArray(new Path[0]);
+    Object[] results = new Object[keys.length];
+    boolean[] failed = new boolean[keys.length];
+    CompletableFuture<?>[] futures = new CompletableFuture<?>[keys.length];
+    for (int i = 0; i < keys.length; i++) {
+      int index = i;
+      Runnable runnable = () -> {
+        try {
+          results[index] = task.run(keys[index]);
+        } catch (Throwable e) {
+          results[index] = e;
+          failed[index] = true;
+        }
+      };
+      try {
+        futures[i] = CompletableFuture.runAsync(runnable, executor);
+      } catch (RejectedExecutionException e) {
+        results[i] = e;
+        failed[i] = true;
+        futures[i] = CompletableFuture.completedFuture(null);
+      }
+    }
+    CompletableFuture.allOf(futures).join(); // also publishes the results
+    Map<Path, T> values = new LinkedHashMap<>();
+    Map<Path, Throwable> failures = new LinkedHashMap<>();
+    for (int i = 0; i < keys.length; i++) {
+      if (failed[i]) failures.put(keys[i], (Throwable) results[i]);
+      else values.put(keys[i], (T) results[i]);
+    }
+    return new NBTBatchResult<>(values, failures);
+  }
 }
@@ -0,0 +1,329 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataOutput;
+import java.io.DataOutputStream;
+import java.io.Flushable;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.Objects;
+
+/**
+ * A streaming writer for binary NBT that emits tags directly without building the tag tree.
+ *
+ * <p>Lists are started with their length. Only a writer into a {@link ByteBuffer} can start a list with an
+ * unknown length, which is back-patched at {@link #endList()}; stream targets can't seek back, so they
+ * require the length up front and nothing is held in memory.
+ *
+ * <pre>{@code
+ * try (NBTWriter writer = new NBTWriter(output)) {
+ *   writer.beginCompound();
+ *   writer.name("Items").beginList(TagType.COMPOUND, items.size());
+ *   for (Item item : items) {
+ *     writer.beginCompound();
+ *     writer.name("id").writeString(item.id);
+ *     writer.endCompound();
+ *   }
+ *   writer.endList();
+ *   writer.endCompound();
+ * }
+ * }</pre>
+ */
+public final class NBTWriter implements Closeable, Flushable {
+  @NotNull private final DataOutput output;
+  @Nullable private final ByteBuffer buffer;
+
+  private final static int SCOPE_ROOT = 0;
+  private final static int SCOPE_COMPOUND = 1;
+  private final static int SCOPE_LIST = 2;
+
+  private int[] scopes = new int[16];
+  private int[] counts = new int[16];
+  private int[] lengths = new int[16]; // expected list length, or -1 if back-patched
+  private int[] patches = new int[16]; // position of the back-patched list length
+  private TagType[] elementTypes = new TagType[16];
+  private int depth = 1;
+
+  @Nullable private String name;
+  private boolean rootWritten;
+
+  @Contract("null -> fail")
+  public NBTWriter(DataOutput output) {
+    this.output = Objects.requireNonNull(output, "output");
+    this.buffer = null;
+    this.scopes[0] = SCOPE_ROOT;
+  }
+
+  @Contract("null -> fail")
+  public NBTWriter(OutputStream output) {
+    this((DataOutput) new DataOutputStream(new BufferedOutputStream(Objects.requireNonNull(output, "output"))));
+  }
+
+  /**
+   * Write into the given buffer starting at its current position, the buffer position is updated on
+   * {@link #flush()} and {@link #close()}.
+   *
+   * @throws java.nio.BufferOverflowException On writes if the buffer does not have enough space remaining.
+   */
+  @Contract("null -> fail")
+  public NBTWriter(ByteBuffer buffer) {
+    this.buffer = Objects.requireNonNull(buffer, "buffer");
+    this.output = new ByteBufferOutput(buffer, false);
+    this.scopes[0] = SCOPE_ROOT;
+  }
+
+  public int getDepth() {
+    return depth - 1;
+  }
+
+  /**
+   * Sets the name of the next value, required in compounds and optional for the root value.
+   */
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter name(String name) {
+    Objects.requireNonNull(name, "name");
+    if (scopes[depth - 1] == SCOPE_LIST) throw new IllegalStateException("List elements have no name.");
+    if (this.name != null) throw new IllegalStateException("Name has already been set.");
+    this.name = name;
+    return this;
+  }
+
+  private void beforeValue(@NotNull TagType type) throws IOException {
+    int scope = scopes[depth - 1];
+    if (scope == SCOPE_LIST) {
+      TagType elementType = elementTypes[depth - 1];
+      if (type != elementType)
+        throw new IllegalStateException("Can't write '" + type + "' into '" + elementType + "' element type list.");
+      int count = ++counts[depth - 1];
+      int length = lengths[depth - 1];
+      if (length >= 0 && count > length) throw new IllegalStateException("List length exceeded: " + length);
+      return;
+    }
+    if (scope == SCOPE_ROOT) {
+      if (rootWritten) throw new IllegalStateException("Root value has already been written.");
+      rootWritten = true;
+    } else if (name == null) {
+      throw new IllegalStateException("Expected name before value in compound.");
+    }
+    output.writeByte(type.getId());
+    output.writeUTF(name != null ? name : "");
+    name = null;
+  }
+
+  private void push(int scope, TagType elementType, int length) {
+    if (depth == scopes.length) {
+      int newLength = depth * 2;
+      scopes = Arrays.copyOf(scopes, newLength);
+      counts = Arrays.copyOf(counts, newLength);
+      lengths = Arrays.copyOf(lengths, newLength);
+      patches = Arrays.copyOf(patches, newLength);
+      elementTypes = Arrays.copyOf(elementTypes, newLength);
+    }
+    scopes[depth] = scope;
+    counts[depth] = 0;
+    lengths[depth] = length;
+    patches[depth] = -1;
+    elementTypes[depth] = elementType;
+    depth++;
+  }
+
+  @NotNull
+  @Contract("-> this")
+  public NBTWriter beginCompound() throws IOException {
+    beforeValue(TagType.COMPOUND);
+    push(SCOPE_COMPOUND, null, -1);
+    return this;
+  }
+
+  @NotNull
+  @Contract("-> this")
+  public NBTWriter endCompound() throws IOException {
+    if (scopes[depth - 1] != SCOPE_COMPOUND) throw new IllegalStateException("Not in a compound scope.");
+    if (name != null) throw new IllegalStateException("Dangling name: " + name);
+    output.writeByte(0); // END
+    depth--;
+    return this;
+  }
+
+  @NotNull
+  @Contract("null, _ -> fail; !null, _ -> this")
+  public NBTWriter beginList(TagType elementType, int length) throws IOException {
+    Objects.requireNonNull(elementType, "elementType");
+    if (length < 0) throw new IllegalArgumentException("Negative list length: " + length);
+    beforeValue(TagType.LIST);
+    output.writeByte(elementType.getId());
+    output.writeInt(length);
+    push(SCOPE_LIST, elementType, length);
+    return this;
+  }
+
+  /**
+   * Begin a list whose length is not known yet, the length is back-patched at {@link #endList()}.
+   *
+   * @throws UnsupportedOperationException If the writer does not write into a {@link ByteBuffer}.
+   */
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter beginList(TagType elementType) throws IOException {
+    Objects.requireNonNull(elementType, "elementType");
+    if (buffer == null)
+      throw new UnsupportedOperationException("Lists of unknown length require a ByteBuffer target, use beginList(TagType, int).");
+    beforeValue(TagType.LIST);
+    output.writeByte(elementType.getId());
+    int patch = ((ByteBufferOutput) output).position();
+    output.writeInt(0);
+    push(SCOPE_LIST, elementType, -1);
+    patches[depth - 1] = patch;
+    return this;
+  }
+
+  @NotNull
+  @Contract("-> this")
+  public NBTWriter endList() throws IOException {
+    if (scopes[depth - 1] != SCOPE_LIST) throw new IllegalStateException("Not in a list scope.");
+    int count = counts[depth - 1];
+    int length = lengths[depth - 1];
+    if (length >= 0) {
+      if (count != length) throw new IllegalStateException("List length mismatch, expected " + length + " but was " + count + ".");
+    } else {
+      ((ByteBufferOutput) output).putInt(patches[depth - 1], count);
+    }
+    depth--;
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeByte(int value) throws IOException {
+    beforeValue(TagType.BYTE);
+    output.writeByte(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeBoolean(boolean value) throws IOException {
+    return writeByte(value ? 1 : 0);
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeShort(int value) throws IOException {
+    beforeValue(TagType.SHORT);
+    output.writeShort(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeInt(int value) throws IOException {
+    beforeValue(TagType.INT);
+    output.writeInt(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeLong(long value) throws IOException {
+    beforeValue(TagType.LONG);
+    output.writeLong(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeFloat(float value) throws IOException {
+    beforeValue(TagType.FLOAT);
+    output.writeFloat(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("_ -> this")
+  public NBTWriter writeDouble(double value) throws IOException {
+    beforeValue(TagType.DOUBLE);
+    output.writeDouble(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter writeString(String value) throws IOException {
+    Objects.requireNonNull(value, "value");
+    beforeValue(TagType.STRING);
+    output.writeUTF(value);
+    return this;
+  }
+
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter writeByteArray(byte[] value) throws IOException {
+    return writeTag(new ByteArrayTag(value));
+  }
+
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter writeIntArray(int[] value) throws IOException {
+    return writeTag(new IntArrayTag(value));
+  }
+
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter writeLongArray(long[] value) throws IOException {
+    return writeTag(new LongArrayTag(value));
+  }
+
+  /**
+   * Write the tag as the next value, the whole subtree is encoded as is.
+   */
+  @NotNull
+  @Contract("null -> fail; !null -> this")
+  public NBTWriter writeTag(BaseTag<?> value) throws IOException {
+    Objects.requireNonNull(value, "value");
+    TagType type = value.getType();
+    if (type == TagType.END) throw new IllegalArgumentException("Can't write an END tag as a value.");
+    beforeValue(type);
+    value.write(output);
+    return this;
+  }
+
+  @Override
+  public void flush() throws IOException {
+    if (buffer != null) {
+      buffer.position(((ByteBufferOutput) output).position());
+    } else if (output instanceof Flushable) {
+      ((Flushable) output).flush();
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    flush();
+    if (output instanceof Closeable) ((Closeable) output).close();
+    if (depth > 1) throw new IllegalStateException("Unclosed compound or list, depth: " + (depth - 1));
+  }
+}
@@ -0,0 +1,368 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.AbstractList;
+import java.util.RandomAccess;
+
+/**
+ * Element storage of a {@link ListTag} with numeric element type, the values are kept in a primitive array
+ * and the tag wrappers are only created on {@link #get(int)}. The wrappers are copies, so ListTag boxes the
+ * elements before handing any of them out. Elements of the same type can be set, added and removed, other
+ * types are rejected.
+ */
+final class NumericList extends AbstractList<BaseTag<?>> implements RandomAccess {
+  private final static int MAX_INITIAL_CAPACITY = 4096;
+
+  @NotNull private final TagType type;
+  @NotNull private Object array;
+  private int size;
+
+  NumericList(@NotNull TagType type, int capacity) {
+    this.type = type;
+    this.array = allocate(type, Math.max(0, Math.min(capacity, MAX_INITIAL_CAPACITY)));
+  }
+
+  private NumericList(@NotNull TagType type, @NotNull Object array, int size) {
+    this.type = type;
+    this.array = array;
+    this.size = size;
+  }
+
+  static boolean isSupported(@NotNull TagType type) {
+    switch (type) {
+      case BYTE: case SHORT: case INT: case LONG: case FLOAT: case DOUBLE:
+        return true;
+      default:
+        return false;
+    }
+  }
+
+  @NotNull
+  private static Object allocate(@NotNull TagType type, int capacity) {
+    switch (type) {
+      case BYTE: return new byte[capacity];
+      case SHORT: return new short[capacity];
+      case INT: return new int[capacity];
+      case LONG: return new long[capacity];
+      case FLOAT: return new float[capacity];
+      case DOUBLE: return new double[capacity];
+      default: throw new IllegalArgumentException("Not a numeric element type: " + type);
+    }
+  }
+
+  @NotNull
+  TagType getElementType() {
+    return type;
+  }
+
+  private int capacity() {
+    switch (type) {
+      case BYTE: return ((byte[]) array).length;
+      case SHORT: return ((short[]) array).length;
+      case INT: return ((int[]) array).length;
+      case LONG: return ((long[]) array).length;
+      case FLOAT: return ((float[]) array).length;
+      default: return ((double[]) array).length;
+    }
+  }
+
+  private void ensure(int additional) {
+    int capacity = capacity();
+    int required = size + additional;
+    if (required <= capacity) return;
+    Object newArray = allocate(type, Math.max(required, capacity + (capacity >> 1) + 4));
+    System.arraycopy(array, 0, newArray, 0, size);
+    array = newArray;
+  }
+
+  void addByte(byte value) {
+    ensure(1);
+    ((byte[]) array)[size++] = value;
+  }
+
+  void addShort(short value) {
+    ensure(1);
+    ((short[]) array)[size++] = value;
+  }
+
+  void addInt(int value) {
+    ensure(1);
+    ((int[]) array)[size++] = value;
+  }
+
+  void addLong(long value) {
+    ensure(1);
+    ((long[]) array)[size++] = value;
+  }
+
+  void addFloat(float value) {
+    ensure(1);
+    ((float[]) array)[size++] = value;
+  }
+
+  void addDouble(double value) {
+    ensure(1);
+    ((double[]) array)[size++] = value;
+  }
+
+  void read(@NotNull DataInput input, int length) throws IOException {
+    if (input instanceof ByteBufferInput && (type == TagType.INT || type == TagType.LONG) && size == 0 && length > 0) {
+      ByteBufferInput buffer = (ByteBufferInput) input;
+      array = type == TagType.INT ? buffer.readInts(length) : buffer.readLongs(length);
+      size = length;
+      return;
+    }
+    for (int i = 0; i < length; i++) {
+      switch (type) {
+        case BYTE: addByte(input.readByte()); break;
+        case SHORT: addShort(input.readShort()); break;
+        case INT: addInt(input.readInt()); break;
+        case LONG: addLong(input.readLong()); break;
+        case FLOAT: addFloat(input.readFloat()); break;
+        case DOUBLE: addDouble(input.readDouble()); break;
+      }
+    }
+  }
+
+  void write(@NotNull DataOutput output) throws IOException {
+    if (output instanceof ByteBufferOutput && type == TagType.INT) {
+      ((ByteBufferOutput) output).writeInts((int[]) array, size);
+      return;
+    }
+    if (output instanceof ByteBufferOutput && type == TagType.LONG) {
+      ((ByteBufferOutput) output).writeLongs((long[]) array, size);
+      return;
+    }
+    switch (type) {
+      case BYTE:
+        output.write((byte[]) array, 0, size);
+        break;
+      case SHORT:
+        for (int i = 0; i < size; i++) output.writeShort(((short[]) array)[i]);
+        break;
+      case INT:
+        for (int i = 0; i < size; i++) output.writeInt(((int[]) array)[i]);
+        break;
+      case LONG:
+        for (int i = 0; i < size; i++) output.writeLong(((long[]) array)[i]);
+        break;
+      case FLOAT:
+        for (int i = 0; i < size; i++) output.writeFloat(((float[]) array)[i]);
+        break;
+      case DOUBLE:
+        for (int i = 0; i < size; i++) output.writeDouble(((double[]) array)[i]);
+        break;
+    }
+  }
+
+  void toMojangsonBuilder(@NotNull Appendable builder, int index, boolean includeColor) throws IOException {
+    if (includeColor) builder.append(BaseTag.COLOR_GOLD);
+    char suffix;
+    switch (type) {
+      case BYTE: BaseTag.appendNumber(builder, ((byte[]) array)[index]); suffix = BaseTag.SUFFIX_BYTE; break;
+      case SHORT: BaseTag.appendNumber(builder, ((short[]) array)[index]); suffix = BaseTag.SUFFIX_SHORT; break;
+      case INT: BaseTag.appendNumber(builder, ((int[]) array)[index]); suffix = 0; break;
+      case LONG: BaseTag.appendNumber(builder, ((long[]) array)[index]); suffix = BaseTag.SUFFIX_LONG; break;
+      case FLOAT: BaseTag.appendNumber(builder, ((float[]) array)[index]); suffix = BaseTag.SUFFIX_FLOAT; break;
+      default: BaseTag.appendNumber(builder, ((double[]) array)[index]); suffix = BaseTag.SUFFIX_DOUBLE; break;
+    }
+    if (includeColor) builder.append(BaseTag.COLOR_RED);
+    if (suffix > 0) builder.append(suffix);
+    if (includeColor) builder.append(BaseTag.COLOR_RESET);
+  }
+
+  @NotNull
+  NumericList copy() {
+    Object newArray = allocate(type, size);
+    System.arraycopy(array, 0, newArray, 0, size);
+    return new NumericList(type, newArray, size);
+  }
+
+  private void check(int index) {
+    if (index < 0 || index >= size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+  }
+
+  @NotNull
+  private Number number(@NotNull BaseTag<?> element) {
+    if (element.getType() != type)
+      throw new IllegalArgumentException("The type of element value that does not match, should be: " + type);
+    return ((NumericTag<?>) element).value;
+  }
+
+  private void store(int index, @NotNull Number value) {
+    switch (type) {
+      case BYTE: ((byte[]) array)[index] = value.byteValue(); break;
+      case SHORT: ((short[]) array)[index] = value.shortValue(); break;
+      case INT: ((int[]) array)[index] = value.intValue(); break;
+      case LONG: ((long[]) array)[index] = value.longValue(); break;
+      case FLOAT: ((float[]) array)[index] = value.floatValue(); break;
+      default: ((double[]) array)[index] = value.doubleValue(); break;
+    }
+  }
+
+  int intAt(int index) {
+    check(index);
+    switch (type) {
+      case BYTE: return ((byte[]) array)[index];
+      case SHORT: return ((short[]) array)[index];
+      case INT: return ((int[]) array)[index];
+      case LONG: return (int) ((long[]) array)[index];
+      case FLOAT: return (int) ((float[]) array)[index];
+      default: return (int) ((double[]) array)[index];
+    }
+  }
+
+  long longAt(int index) {
+    check(index);
+    switch (type) {
+      case BYTE: return ((byte[]) array)[index];
+      case SHORT: return ((short[]) array)[index];
+      case INT: return ((int[]) array)[index];
+      case LONG: return ((long[]) array)[index];
+      case FLOAT: return (long) ((float[]) array)[index];
+      default: return (long) ((double[]) array)[index];
+    }
+  }
+
+  float floatAt(int index) {
+    check(index);
+    switch (type) {
+      case BYTE: return ((byte[]) array)[index];
+      case SHORT: return ((short[]) array)[index];
+      case INT: return ((int[]) array)[index];
+      case LONG: return ((long[]) array)[index];
+      case FLOAT: return ((float[]) array)[index];
+      default: return (float) ((double[]) array)[index];
+    }
+  }
+
+  double doubleAt(int index) {
+    check(index);
+    switch (type) {
+      case BYTE: return ((byte[]) array)[index];
+      case SHORT: return ((short[]) array)[index];
+      case INT: return ((int[]) array)[index];
+      case LONG: return ((long[]) array)[index];
+      case FLOAT: return ((float[]) array)[index];
+      default: return ((double[]) array)[index];
+    }
+  }
+
+  @NotNull
+  @Override
+  public BaseTag<?> get(int index) {
+    check(index);
+    switch (type) {
+      case BYTE: return new ByteTag(((byte[]) array)[index]);
+      case SHORT: return new ShortTag(((short[]) array)[index]);
+      case INT: return new IntTag(((int[]) array)[index]);
+      case LONG: return new LongTag(((long[]) array)[index]);
+      case FLOAT: return new FloatTag(((float[]) array)[index]);
+      default: return new DoubleTag(((double[]) array)[index]);
+    }
+  }
+
+  @NotNull
+  @Override
+  public BaseTag<?> set(int index, @NotNull BaseTag<?> element) {
+    Number value = number(element);
+    BaseTag<?> old = get(index);
+    store(index, value);
+    return old;
+  }
+
+  @Override
+  public void add(int index, @NotNull BaseTag<?> element) {
+    if (index < 0 || index > size) throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size);
+    Number value = number(element);
+    ensure(1);
+    System.arraycopy(array, index, array, index + 1, size - index);
+    size++;
+    store(index, value);
+    modCount++;
+  }
+
+  @NotNull
+  @Override
+  public BaseTag<?> remove(int index) {
+    BaseTag<?> old = get(index);
+    System.arraycopy(array, index + 1, array, index, size - index - 1);
+    size--;
+    modCount++;
+    return old;
+  }
+
+  @Override
+  public int size() {
+    return size;
+  }
+
+  @Override
+  public void clear() {
+    size = 0;
+    modCount++;
+  }
+
+  // Same as Float.equals / Double.equals of the wrapped values
+  long bits(int index) {
+    switch (type) {
+      case BYTE: return ((byte[]) array)[index];
+      case SHORT: return ((short[]) array)[index];
+      case INT: return ((int[]) array)[index];
+      case LONG: return ((long[]) array)[index];
+      case FLOAT: return Float.floatToIntBits(((float[]) array)[index]);
+      default: return Double.doubleToLongBits(((double[]) array)[index]);
+    }
+  }
+
+  @Override
+  public boolean equals(Object o) {
+    if (this == o) return true;
+    if (!(o instanceof NumericList)) return super.equals(o);
+    NumericList other = (NumericList) o;
+    if (size != other.size) return false;
+    if (type != other.type) return size == 0;
+    for (int i = 0; i < size; i++)
+      if (bits(i) != other.bits(i)) return false;
+    return true;
+  }
+
+  @Override
+  public int hashCode() {
+    int hashCode = 1;
+    for (int i = 0; i < size; i++) {
+      int element;
+      switch (type) {
+        case LONG: case DOUBLE: {
+          long bits = bits(i);
+          element = (int) (bits ^ (bits >>> 32));
+          break;
+        }
+        default:
+          element = (int) bits(i);
+      }
+      hashCode = 31 * hashCode + element;
+    }
+    return hashCode;
+  }
+}
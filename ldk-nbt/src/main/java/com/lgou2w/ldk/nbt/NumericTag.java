@@ -18,6 +18,8 @@ package com.lgou2w.ldk.nbt;
 
 import org.jetbrains.annotations.NotNull;
 
+import java.io.IOException;
+
 public abstract class NumericTag<T extends Number> extends BaseTag<T> {
 
   public NumericTag(T value) {
@@ -48,19 +50,30 @@ public abstract class NumericTag<T extends Number> extends BaseTag<T> {
     return value.byteValue();
   }
 
+  @Override
+  public int sizeInBytes() {
+    return NBTStreams.fixedSize(getType());
+  }
+
   protected abstract char getMojangsonSuffix();
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     if (!includeColor) {
-      builder.append(value);
+      appendValue(builder);
       if (getMojangsonSuffix() > 0) builder.append(getMojangsonSuffix());
     } else {
       builder.append(COLOR_GOLD);
-      builder.append(value);
+      appendValue(builder);
       builder.append(COLOR_RED);
       if (getMojangsonSuffix() > 0) builder.append(getMojangsonSuffix());
       builder.append(COLOR_RESET);
     }
   }
+
+  private void appendValue(@NotNull Appendable builder) throws IOException {
+    if (value instanceof Float) appendNumber(builder, value.floatValue());
+    else if (value instanceof Double) appendNumber(builder, value.doubleValue());
+    else appendNumber(builder, value.longValue());
+  }
 }
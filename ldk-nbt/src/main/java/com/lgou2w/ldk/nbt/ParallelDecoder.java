@@ -0,0 +1,170 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.RecursiveAction;
+
+/*
+ *  Decoder that splits large lists of compounds or lists across a ForkJoin pool. The element
+ *  boundaries are found by skipping the elements first, then ranges of elements are decoded in
+ *  parallel, each from its own view of the source buffer.
+ */
+
+final class ParallelDecoder {
+  final static int DEFAULT_THRESHOLD = 1024;
+  private final static int MIN_BATCH_SIZE = 16;
+
+  @NotNull private final ForkJoinPool forkJoinPool;
+  @Nullable private final NBTInternPool pool;
+  private final int threshold;
+
+  ParallelDecoder(@NotNull ForkJoinPool forkJoinPool, @Nullable NBTInternPool pool, int threshold) {
+    this.forkJoinPool = forkJoinPool;
+    this.pool = pool;
+    this.threshold = threshold;
+  }
+
+  @NotNull
+  NBTMetadata read(@NotNull ByteBuffer buffer) throws IOException {
+    ByteBufferInput input = new ByteBufferInput(buffer, pool);
+    TagType type = TagType.fromId(input.readUnsignedByte());
+    if (type == null || type == TagType.END) {
+      buffer.position(input.position());
+      return NBTMetadata.END;
+    }
+    String name = input.readUTF();
+    BaseTag<?> value;
+    try {
+      value = read(input, type);
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    buffer.position(input.position());
+    return NBTMetadata.of(name, value);
+  }
+
+  @NotNull
+  private BaseTag<?> read(@NotNull ByteBufferInput input, @NotNull TagType type) throws IOException {
+    switch (type) {
+      case COMPOUND: {
+        CompoundTag compound = new CompoundTag();
+        TagType entryType;
+        while ((entryType = TagType.fromId(input.readUnsignedByte())) != null && entryType != TagType.END) {
+          String name = input.readUTF();
+          compound.put(name, read(input, entryType));
+        }
+        return compound;
+      }
+      case LIST: {
+        int start = input.position();
+        TagType elementType = TagType.fromId(input.readUnsignedByte());
+        int length = input.readInt();
+        ListTag list = new ListTag();
+        if (length <= 0 || (elementType != TagType.COMPOUND && elementType != TagType.LIST)) {
+          input.position(start);
+          list.read(input);
+          return list;
+        }
+        // Each compound element takes at least 1 byte and each list element 5, check before allocating
+        if (length > input.remaining() / (elementType == TagType.LIST ? 5 : 1))
+          throw new EOFException("List length " + length + " exceeds the remaining " + input.remaining() + " bytes");
+        List<BaseTag<?>> elements;
+        if (length >= threshold) {
+          elements = readParallel(input, elementType, length);
+        } else {
+          elements = new ArrayList<>(length);
+          for (int i = 0; i < length; i++) elements.add(read(input, elementType));
+        }
+        list.setElements(elementType, elements);
+        return list;
+      }
+      default: {
+        BaseTag<?> tag = TagType.create(type);
+        tag.read(input);
+        return tag;
+      }
+    }
+  }
+
+  @NotNull
+  private List<BaseTag<?>> readParallel(@NotNull ByteBufferInput input, @NotNull TagType elementType, int length) throws IOException {
+    int[] starts = new int[length];
+    for (int i = 0; i < length; i++) {
+      starts[i] = input.position();
+      NBTStreams.skip(input, elementType);
+    }
+    BaseTag<?>[] elements = new BaseTag<?>[length];
+    int batchSize = Math.max(MIN_BATCH_SIZE, length / (forkJoinPool.getParallelism() * 8));
+    ReadElementsAction action = new ReadElementsAction(input.buffer(), elementType, starts, elements, 0, length, batchSize);
+    if (ForkJoinTask.inForkJoinPool()) action.invoke(); // nested list, already in a task
+    else forkJoinPool.invoke(action);
+    return new ArrayList<>(Arrays.asList(elements));
+  }
+
+  private final class ReadElementsAction extends RecursiveAction {
+    private final static long serialVersionUID = 0L;
+
+    private final ByteBuffer source;
+    private final TagType elementType;
+    private final int[] starts;
+    private final BaseTag<?>[] elements;
+    private final int from, to, batchSize;
+
+    ReadElementsAction(ByteBuffer source, TagType elementType, int[] starts, BaseTag<?>[] elements, int from, int to, int batchSize) {
+      this.source = source;
+      this.elementType = elementType;
+      this.starts = starts;
+      this.elements = elements;
+      this.from = from;
+      this.to = to;
+      this.batchSize = batchSize;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= batchSize) {
+        ByteBufferInput input = new ByteBufferInput(source, pool);
+        try {
+          for (int i = from; i < to; i++) {
+            input.position(starts[i]);
+            elements[i] = read(input, elementType);
+          }
+        } catch (IOException e) {
+          throw new UncheckedIOException(e);
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(
+          new ReadElementsAction(source, elementType, starts, elements, from, middle, batchSize),
+          new ReadElementsAction(source, elementType, starts, elements, middle, to, batchSize)
+        );
+      }
+    }
+  }
+}
@@ -0,0 +1,118 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.NotNull;
+
+import java.io.DataInput;
+import java.io.IOException;
+
+/*
+ *  DataInput that decodes strings through an intern pool, other reads are delegated.
+ */
+
+final class PooledDataInput implements DataInput {
+  @NotNull private final DataInput input;
+  @NotNull private final NBTInternPool pool;
+  private byte[] scratch = new byte[64];
+
+  PooledDataInput(@NotNull DataInput input, @NotNull NBTInternPool pool) {
+    this.input = input;
+    this.pool = pool;
+  }
+
+  @Override
+  public void readFully(byte @NotNull [] b) throws IOException {
+    input.readFully(b);
+  }
+
+  @Override
+  public void readFully(byte @NotNull [] b, int off, int len) throws IOException {
+    input.readFully(b, off, len);
+  }
+
+  @Override
+  public int skipBytes(int n) throws IOException {
+    return input.skipBytes(n);
+  }
+
+  @Override
+  public boolean readBoolean() throws IOException {
+    return input.readBoolean();
+  }
+
+  @Override
+  public byte readByte() throws IOException {
+    return input.readByte();
+  }
+
+  @Override
+  public int readUnsignedByte() throws IOException {
+    return input.readUnsignedByte();
+  }
+
+  @Override
+  public short readShort() throws IOException {
+    return input.readShort();
+  }
+
+  @Override
+  public int readUnsignedShort() throws IOException {
+    return input.readUnsignedShort();
+  }
+
+  @Override
+  public char readChar() throws IOException {
+    return input.readChar();
+  }
+
+  @Override
+  public int readInt() throws IOException {
+    return input.readInt();
+  }
+
+  @Override
+  public long readLong() throws IOException {
+    return input.readLong();
+  }
+
+  @Override
+  public float readFloat() throws IOException {
+    return input.readFloat();
+  }
+
+  @Override
+  public double readDouble() throws IOException {
+    return input.readDouble();
+  }
+
+  @Override
+  @SuppressWarnings("deprecation")
+  public String readLine() throws IOException {
+    return input.readLine();
+  }
+
+  @NotNull
+  @Override
+  public String readUTF() throws IOException {
+    int length = input.readUnsignedShort();
+    byte[] bytes = scratch;
+    if (bytes.length < length) scratch = bytes = new byte[Math.max(length, bytes.length << 1)];
+    input.readFully(bytes, 0, length);
+    return pool.decode(bytes, 0, length);
+  }
+}
@@ -0,0 +1,416 @@
+/*
+ * Copyright (C) 2016-2021 The lgou2w <lgou2w@hotmail.com>
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+
+package com.lgou2w.ldk.nbt;
+
+import org.jetbrains.annotations.Contract;
+import org.jetbrains.annotations.NotNull;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.BufferedInputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.BitSet;
+import java.util.Objects;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/*
+ *  Anvil region file (.mca) format
+ *  see: https://minecraft.gamepedia.com/Region_file_format
+ */
+
+public final class RegionFile implements Closeable {
+
+  public final static int SECTOR_SIZE = 4096;
+  public final static int CHUNK_COUNT = 1024;
+  private final static int HEADER_SECTORS = 2;
+  private final static int CHUNK_HEADER_SIZE = 5;
+  private final static int MAX_SECTOR_COUNT = 255;
+  private final static int EXTERNAL_FLAG = 128;
+  private final static Pattern FILE_NAME = Pattern.compile("^r\\.(-?\\d+)\\.(-?\\d+)\\.mca$");
+
+  @NotNull private final Path path;
+  @NotNull private final FileChannel channel;
+  private final boolean readOnly;
+  private final int[] offsets = new int[CHUNK_COUNT];
+  private final int[] timestamps = new int[CHUNK_COUNT];
+  private final BitSet usedSectors = new BitSet();
+  private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+  @Contract("null, _ -> fail")
+  public RegionFile(Path path, boolean readOnly) throws IOException {
+    this.path = Objects.requireNonNull(path, "path");
+    this.readOnly = readOnly;
+    this.channel = readOnly
+      ? FileChannel.open(path, StandardOpenOption.READ)
+      : FileChannel.open(path, StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.CREATE);
+    try {
+      readHeader();
+    } catch (IOException e) {
+      channel.close();
+      throw e;
+    }
+  }
+
+  private void readHeader() throws IOException {
+    long size = channel.size();
+    if (size < HEADER_SECTORS * SECTOR_SIZE) {
+      if (readOnly && size != 0) throw new IOException("Region file header is truncated: " + path.toAbsolutePath());
+      if (!readOnly) {
+        writeFully(ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE), 0L);
+        size = HEADER_SECTORS * SECTOR_SIZE;
+      }
+    }
+    usedSectors.set(0, HEADER_SECTORS);
+    if (size == 0) return;
+    ByteBuffer header = ByteBuffer.allocate(HEADER_SECTORS * SECTOR_SIZE);
+    readFully(header, 0L);
+    header.flip();
+    header.asIntBuffer().get(offsets);
+    header.position(SECTOR_SIZE);
+    header.asIntBuffer().get(timestamps);
+    long totalSectors = (size + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    for (int i = 0; i < CHUNK_COUNT; i++) {
+      int offset = offsets[i];
+      if (offset == 0) continue;
+      int sectorOffset = offset >>> 8;
+      int sectorCount = offset & 0xFF;
+      if (sectorOffset < HEADER_SECTORS || sectorCount == 0 || sectorOffset + sectorCount > totalSectors) {
+        offsets[i] = 0; // invalid entry, treat the chunk as absent
+        continue;
+      }
+      usedSectors.set(sectorOffset, sectorOffset + sectorCount);
+    }
+  }
+
+  @NotNull
+  public Path getPath() {
+    return path;
+  }
+
+  public boolean isReadOnly() {
+    return readOnly;
+  }
+
+  public static int index(int x, int z) {
+    return (x & 31) + (z & 31) * 32;
+  }
+
+  public boolean hasChunk(int x, int z) {
+    lock.readLock().lock();
+    try {
+      return offsets[index(x, z)] != 0;
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  public int getTimestamp(int x, int z) {
+    lock.readLock().lock();
+    try {
+      return timestamps[index(x, z)];
+    } finally {
+      lock.readLock().unlock();
+    }
+  }
+
+  @Nullable
+  public CompoundTag readChunk(int x, int z) throws IOException {
+    return readChunk(index(x, z));
+  }
+
+  @Nullable
+  private CompoundTag readChunk(int index) throws IOException {
+    int type;
+    byte[] payload;
+    lock.readLock().lock();
+    try {
+      int offset = offsets[index];
+      if (offset == 0) return null;
+      int sectorOffset = offset >>> 8;
+      int sectorCount = offset & 0xFF;
+      ByteBuffer header = ByteBuffer.allocate(CHUNK_HEADER_SIZE);
+      readFully(header, (long) sectorOffset * SECTOR_SIZE);
+      header.flip();
+      int length = header.getInt();
+      type = header.get() & 0xFF;
+      if (length <= 0 || length > sectorCount * SECTOR_SIZE - 4)
+        throw new IOException("Invalid chunk length " + length + " at index " + index + " in region file: " + path.toAbsolutePath());
+      if ((type & EXTERNAL_FLAG) != 0) {
+        type &= ~EXTERNAL_FLAG;
+        payload = Files.readAllBytes(externalPath(index));
+      } else {
+        ByteBuffer data = ByteBuffer.allocate(length - 1);
+        readFully(data, (long) sectorOffset * SECTOR_SIZE + CHUNK_HEADER_SIZE);
+        payload = data.array();
+      }
+    } finally {
+      lock.readLock().unlock();
+    }
+    Compression compression = Compression.fromId(type);
+    if (compression == null)
+      throw new IOException("Unknown chunk compression type " + type + " at index " + index + " in region file: " + path.toAbsolutePath());
+    NBTMetadata metadata = compression == Compression.NONE
+      ? NBTStreams.read(ByteBuffer.wrap(payload))
+      : NBTStreams.read(new BufferedInputStream(compression.codec.decompress(new ByteArrayInputStream(payload))));
+    BaseTag<?> value = metadata.getValue();
+    if (!(value instanceof CompoundTag))
+      throw new IOException("Chunk at index " + index + " is not a compound tag: " + value.getType());
+    return (CompoundTag) value;
+  }
+
+  /**
+   * Read and decode all chunks of this region in parallel on the given pool.
+   * The returned array is indexed by {@link #index(int, int)}, absent chunks are {@code null}.
+   */
+  @NotNull
+  @Contract("null -> fail")
+  public CompoundTag[] readChunks(ForkJoinPool pool) throws IOException {
+    Objects.requireNonNull(pool, "pool");
+    CompoundTag[] chunks = new CompoundTag[CHUNK_COUNT];
+    try {
+      pool.invoke(new ReadChunksAction(chunks, 0, CHUNK_COUNT));
+    } catch (UncheckedIOException e) {
+      throw e.getCause();
+    }
+    return chunks;
+  }
+
+  @NotNull
+  public CompoundTag[] readChunks() throws IOException {
+    return readChunks(ForkJoinPool.commonPool());
+  }
+
+  private final class ReadChunksAction extends RecursiveAction {
+    private final static long serialVersionUID = 0L;
+    private final static int THRESHOLD = 16;
+    private final CompoundTag[] chunks;
+    private final int from, to;
+
+    ReadChunksAction(CompoundTag[] chunks, int from, int to) {
+      this.chunks = chunks;
+      this.from = from;
+      this.to = to;
+    }
+
+    @Override
+    protected void compute() {
+      if (to - from <= THRESHOLD) {
+        for (int i = from; i < to; i++) {
+          try {
+            chunks[i] = readChunk(i);
+          } catch (IOException e) {
+            throw new UncheckedIOException(e);
+          }
+        }
+      } else {
+        int middle = (from + to) >>> 1;
+        invokeAll(new ReadChunksAction(chunks, from, middle), new ReadChunksAction(chunks, middle, to));
+      }
+    }
+  }
+
+  @Contract("_, _, null -> fail")
+  public void writeChunk(int x, int z, CompoundTag chunk) throws IOException {
+    writeChunk(x, z, chunk, Compression.ZLIB);
+  }
+
+  @Contract("_, _, null, _ -> fail; _, _, _, null -> fail")
+  public void writeChunk(int x, int z, CompoundTag chunk, Compression compression) throws IOException {
+    Objects.requireNonNull(compression, "compression");
+    writeChunk(x, z, chunk, compression.codec);
+  }
+
+  /**
+   * Write the chunk with the given codec, for example {@link NBTCompression#FAST}. The chunk
+   * compression type is derived from the codec type.
+   */
+  @Contract("_, _, null, _ -> fail; _, _, _, null -> fail")
+  public void writeChunk(int x, int z, CompoundTag chunk, NBTCompression codec) throws IOException {
+    Objects.requireNonNull(chunk, "chunk");
+    Objects.requireNonNull(codec, "codec");
+    checkWritable();
+    Compression compression = Compression.fromType(codec.getType());
+    ByteArrayOutputStream buffer = new ByteArrayOutputStream(SECTOR_SIZE);
+    try (OutputStream output = codec.compress(buffer)) {
+      NBTStreams.write(output, NBTMetadata.of(chunk));
+    }
+    byte[] payload = buffer.toByteArray();
+    int index = index(x, z);
+    int sectorCount = (payload.length + CHUNK_HEADER_SIZE + SECTOR_SIZE - 1) / SECTOR_SIZE;
+    boolean external = sectorCount > MAX_SECTOR_COUNT;
+    if (external) sectorCount = 1;
+    ByteBuffer data = ByteBuffer.allocate(sectorCount * SECTOR_SIZE);
+    data.putInt(external ? 1 : payload.length + 1);
+    data.put((byte) (external ? compression.id | EXTERNAL_FLAG : compression.id));
+    if (!external) data.put(payload);
+    data.clear();
+    lock.writeLock().lock();
+    try {
+      if (external) Files.write(externalPath(index), payload);
+      int oldOffset = offsets[index];
+      int sectorOffset = allocate(sectorCount);
+      writeFully(data, (long) sectorOffset * SECTOR_SIZE);
+      usedSectors.set(sectorOffset, sectorOffset + sectorCount);
+      writeHeader(index, (sectorOffset << 8) | sectorCount, (int) (System.currentTimeMillis() / 1000L));
+      if (oldOffset != 0) free(oldOffset);
+      if (!external && isExternalNameResolvable()) Files.deleteIfExists(externalPath(index));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void deleteChunk(int x, int z) throws IOException {
+    checkWritable();
+    int index = index(x, z);
+    lock.writeLock().lock();
+    try {
+      int oldOffset = offsets[index];
+      if (oldOffset == 0) return;
+      writeHeader(index, 0, 0);
+      free(oldOffset);
+      if (isExternalNameResolvable()) Files.deleteIfExists(externalPath(index));
+    } finally {
+      lock.writeLock().unlock();
+    }
+  }
+
+  public void flush() throws IOException {
+    channel.force(true);
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+  }
+
+  private void checkWritable() throws IOException {
+    if (readOnly) throw new IOException("Region file is opened as read-only: " + path.toAbsolutePath());
+  }
+
+  private int allocate(int sectorCount) {
+    int start = usedSectors.nextClearBit(HEADER_SECTORS);
+    while (true) {
+      int end = usedSectors.nextSetBit(start);
+      if (end == -1 || end - start >= sectorCount) return start;
+      start = usedSectors.nextClearBit(end);
+    }
+  }
+
+  private void free(int offset) {
+    int sectorOffset = offset >>> 8;
+    usedSectors.clear(sectorOffset, sectorOffset + (offset & 0xFF));
+  }
+
+  private void writeHeader(int index, int offset, int timestamp) throws IOException {
+    ByteBuffer entry = ByteBuffer.allocate(4);
+    entry.putInt(0, offset);
+    writeFully(entry, index * 4L);
+    entry.clear();
+    entry.putInt(0, timestamp);
+    writeFully(entry, SECTOR_SIZE + index * 4L);
+    offsets[index] = offset;
+    timestamps[index] = timestamp;
+  }
+
+  private boolean isExternalNameResolvable() {
+    Path fileName = path.getFileName();
+    return fileName != null && FILE_NAME.matcher(fileName.toString()).matches();
+  }
+
+  @NotNull
+  private Path externalPath(int index) throws IOException {
+    Path fileName = path.getFileName();
+    Matcher matcher = FILE_NAME.matcher(fileName != null ? fileName.toString() : "");
+    if (!matcher.matches())
+      throw new IOException("Region file name does not match 'r.<x>.<z>.mca', unable to resolve external chunk: " + path.toAbsolutePath());
+    int chunkX = Integer.parseInt(matcher.group(1)) * 32 + (index & 31);
+    int chunkZ = Integer.parseInt(matcher.group(2)) * 32 + (index >> 5);
+    return path.resolveSibling("c." + chunkX + "." + chunkZ + ".mcc");
+  }
+
+  private void readFully(@NotNull ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      int read = channel.read(buffer, position);
+      if (read < 0) throw new EOFException("Unexpected end of region file: " + path.toAbsolutePath());
+      position += read;
+    }
+  }
+
+  private void writeFully(@NotNull ByteBuffer buffer, long position) throws IOException {
+    while (buffer.hasRemaining()) {
+      position += channel.write(buffer, position);
+    }
+  }
+
+  public enum Compression {
+
+    GZIP(1, NBTCompression.GZIP),
+    ZLIB(2, NBTCompression.ZLIB),
+    NONE(3, NBTCompression.NONE),
+    ;
+
+    private final int id;
+    @NotNull private final NBTCompression codec;
+
+    Compression(int id, @NotNull NBTCompression codec) {
+      this.id = id;
+      this.codec = codec;
+    }
+
+    public int getId() {
+      return id;
+    }
+
+    @NotNull
+    public NBTCompression getCodec() {
+      return codec;
+    }
+
+    @Nullable
+    public static Compression fromId(int id) {
+      for (Compression compression : values())
+        if (compression.id == id) return compression;
+      return null;
+    }
+
+    @NotNull
+    @Contract("null -> fail")
+    public static Compression fromType(NBTCompression.Type type) {
+      Objects.requireNonNull(type, "type");
+      switch (type) {
+        case GZIP: return GZIP;
+        case ZLIB: return ZLIB;
+        default: return NONE;
+      }
+    }
+  }
+}
@@ -22,6 +22,7 @@ import org.jetbrains.annotations.NotNull;
 import java.io.DataInput;
 import java.io.DataOutput;
 import java.io.IOException;
+import java.io.Writer;
 
 public class StringTag extends BaseTag<String> {
 
@@ -49,6 +50,11 @@ public class StringTag extends BaseTag<String> {
     output.writeUTF(value);
   }
 
+  @Override
+  public int sizeInBytes() {
+    return 2 + ModifiedUTF8.length(value);
+  }
+
   @Override
   public String toString() {
     return "StringTag{" +
@@ -57,14 +63,14 @@ public class StringTag extends BaseTag<String> {
   }
 
   @Override
-  protected void toMojangsonBuilder(@NotNull StringBuilder builder, boolean includeColor) {
+  protected void toMojangsonBuilder(@NotNull Appendable builder, boolean includeColor) throws IOException {
     if (!includeColor) {
       builder.append('"');
-      builder.append(escape(value));
+      escape(builder, value);
       builder.append('"');
     } else {
       builder.append("\"" + COLOR_GREEN);
-      builder.append(escape(value));
+      escape(builder, value);
       builder.append(COLOR_RESET);
       builder.append('"');
     }
@@ -77,6 +83,22 @@ public class StringTag extends BaseTag<String> {
   }
 
   static String escape(String value) {
-    return value.replace("\"", "\\\"");
+    return value.indexOf('"') < 0 ? value : value.replace("\"", "\\\"");
+  }
+
+  static void escape(@NotNull Appendable builder, @NotNull String value) throws IOException {
+    int start = 0, quote;
+    while ((quote = value.indexOf('"', start)) >= 0) {
+      append(builder, value, start, quote);
+      builder.append('\\').append('"');
+      start = quote + 1;
+    }
+    append(builder, value, start, value.length());
+  }
+
+  private static void append(@NotNull Appendable builder, @NotNull String value, int start, int end) throws IOException {
+    if (start == end) return;
+    if (builder instanceof Writer) ((Writer) builder).write(value, start, end - start);
+    else builder.append(value, start, end);
   }
 }
@@ -87,25 +87,26 @@ public enum TagType {
     return this == LIST || this == COMPOUND;
   }
 
-  private final static Map<Integer, TagType> ID_MAP;
+  private final static TagType[] ID_TABLE;
   private final static Map<Class<?>, TagType> CLASS_MAP;
 
   static {
-    Map<Integer, TagType> idMap = new HashMap<>();
+    TagType[] values = TagType.values();
+    TagType[] idTable = new TagType[values.length];
     Map<Class<?>, TagType> classMap = new HashMap<>();
-    for (TagType type : TagType.values()) {
-      idMap.put(type.id, type);
+    for (TagType type : values) {
+      idTable[type.id] = type;
       classMap.put(type.primitive, type);
       classMap.put(type.reference, type);
       classMap.put(type.wrapped, type);
     }
-    ID_MAP = Collections.unmodifiableMap(idMap);
+    ID_TABLE = idTable;
     CLASS_MAP = Collections.unmodifiableMap(classMap);
   }
 
   @Nullable
   public static TagType fromId(int id) {
-    return ID_MAP.get(id);
+    return id >= 0 && id < ID_TABLE.length ? ID_TABLE[id] : null;
   }
 
   @Nullable